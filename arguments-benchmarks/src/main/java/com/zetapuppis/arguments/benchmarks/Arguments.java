@@ -0,0 +1,84 @@
+package com.zetapuppis.arguments.benchmarks;
+
+import com.zetapuppis.arguments.CmdLineException;
+import com.zetapuppis.arguments.ParserSchema;
+
+/**
+ * Schemas and argument vectors shared by the benchmarks.
+ */
+/* package */ final class Arguments {
+    private Arguments() {
+    }
+
+    /**
+     * Returns the number of arguments for the given benchmark size.
+     * @param size one of <code>small</code>, <code>medium</code> or
+     *             <code>huge</code>
+     * @return the number of arguments
+     */
+    /* package */ static int countOf(final String size) {
+        if ("small".equals(size)) {
+            return 4;
+        } else if ("medium".equals(size)) {
+            return 64;
+        } else if ("huge".equals(size)) {
+            return 4096;
+        }
+        throw new IllegalArgumentException("unknown size " + size);
+    }
+
+    /* package */ static String nameOf(final int index) {
+        return "option" + index;
+    }
+
+    /* package */ static String valueOf(final int index) {
+        return Integer.toString(index);
+    }
+
+    /**
+     * Declares <code>count</code> optional switches, all taking a value.
+     */
+    /* package */ static ParserSchema.Builder switchSchema(final int count) throws CmdLineException {
+        final ParserSchema.Builder builder = ParserSchema.builder();
+        for (int i = 0; i < count; i++) {
+            builder.addSwitch(nameOf(i), true, false);
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the command line setting every switch of
+     * {@link #switchSchema(int)}.
+     */
+    /* package */ static String[] switchArgs(final int count) {
+        final String[] args = new String[count * 2];
+        for (int i = 0; i < count; i++) {
+            args[i * 2] = "--" + nameOf(i);
+            args[i * 2 + 1] = valueOf(i);
+        }
+        return args;
+    }
+
+    /**
+     * Declares <code>count</code> positional arguments.
+     */
+    /* package */ static ParserSchema.Builder positionalSchema(final int count) throws CmdLineException {
+        final ParserSchema.Builder builder = ParserSchema.builder();
+        for (int i = 0; i < count; i++) {
+            builder.addPositional(nameOf(i), i + 1);
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the command line setting every argument of
+     * {@link #positionalSchema(int)}.
+     */
+    /* package */ static String[] positionalArgs(final int count) {
+        final String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = valueOf(i);
+        }
+        return args;
+    }
+}
@@ -0,0 +1,94 @@
+package com.zetapuppis.arguments.benchmarks;
+
+import com.zetapuppis.arguments.ArgumentKey;
+import com.zetapuppis.arguments.ArgumentTypeException;
+import com.zetapuppis.arguments.CmdLineException;
+import com.zetapuppis.arguments.ParsedArguments;
+import com.zetapuppis.arguments.ParserSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures typed access to already parsed arguments, both by name and
+ * through {@link ArgumentKey} handles.
+ * <p>
+ * The parsed arguments are shared across invocations, so these numbers
+ * include the benefit of memoized conversions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetterBenchmark {
+    // the last switch of the schema, the worst case for name lookups
+    private static final int LOOKUP = 63;
+
+    private ParsedArguments mParsed;
+    private ArgumentKey<String> mStringKey;
+    private ArgumentKey<Integer> mIntKey;
+    private ArgumentKey<File> mFileKey;
+    private String mName;
+
+    @Setup
+    public void setUp() throws CmdLineException {
+        final ParserSchema schema = Arguments.switchSchema(LOOKUP + 1).build();
+        mParsed = schema.parse(Arguments.switchArgs(LOOKUP + 1));
+        mName = Arguments.nameOf(LOOKUP);
+        mStringKey = schema.stringKey(mName);
+        mIntKey = schema.intKey(mName);
+        mFileKey = schema.fileKey(mName);
+    }
+
+    @Benchmark
+    public boolean hasByName() {
+        return mParsed.has(mName);
+    }
+
+    @Benchmark
+    public boolean hasByKey() {
+        return mParsed.has(mStringKey);
+    }
+
+    @Benchmark
+    public String getStringByName() throws ArgumentTypeException {
+        return mParsed.getString(mName);
+    }
+
+    @Benchmark
+    public String getStringByKey() throws ArgumentTypeException {
+        return mParsed.get(mStringKey);
+    }
+
+    @Benchmark
+    public int getIntByName() throws ArgumentTypeException {
+        return mParsed.getInt(mName);
+    }
+
+    @Benchmark
+    public int getIntByKey() throws ArgumentTypeException {
+        return mParsed.get(mIntKey);
+    }
+
+    @Benchmark
+    public File getFileByName() throws ArgumentTypeException {
+        return mParsed.getFile(mName);
+    }
+
+    @Benchmark
+    public File getFileByKey() throws ArgumentTypeException {
+        return mParsed.get(mFileKey);
+    }
+}
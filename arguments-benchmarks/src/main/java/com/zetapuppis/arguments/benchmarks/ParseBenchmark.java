@@ -0,0 +1,102 @@
+package com.zetapuppis.arguments.benchmarks;
+
+import com.zetapuppis.arguments.CmdLineException;
+import com.zetapuppis.arguments.CommandLineParser;
+import com.zetapuppis.arguments.ParsedArguments;
+import com.zetapuppis.arguments.ParserSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to parse a whole argument vector.
+ * <p>
+ * The argument vector grows together with the schema: every argument of
+ * the schema appears exactly once on the command line, so that
+ * <code>small</code>, <code>medium</code> and <code>huge</code> vectors
+ * respectively carry 4, 64 and 4096 arguments. Switch-heavy schemas only
+ * declare valued switches (two tokens each), positional-heavy schemas
+ * only declare positional arguments (one token each).
+ * <p>
+ * Run with <code>-prof gc</code> to get the allocation rate per parse
+ * (<code>gc.alloc.rate.norm</code>).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({ "small", "medium", "huge" })
+    public String size;
+
+    @Param({ "switches", "positionals" })
+    public String shape;
+
+    private ParserSchema mSchema;
+    private String[] mArgs;
+    private ParsedArguments mTarget;
+
+    @Setup
+    public void setUp() throws CmdLineException {
+        final int count = Arguments.countOf(size);
+        if ("switches".equals(shape)) {
+            mSchema = Arguments.switchSchema(count).build();
+            mArgs = Arguments.switchArgs(count);
+        } else {
+            mSchema = Arguments.positionalSchema(count).build();
+            mArgs = Arguments.positionalArgs(count);
+        }
+        mTarget = mSchema.newArguments();
+    }
+
+    /**
+     * Parses with a schema compiled once and reused across parses, the
+     * expected usage for long-running processes.
+     */
+    @Benchmark
+    public ParsedArguments schema() throws CmdLineException {
+        return mSchema.parse(mArgs);
+    }
+
+    /**
+     * Parses into the same {@link ParsedArguments} over and over, which
+     * shouldn't allocate at all.
+     */
+    @Benchmark
+    public ParsedArguments schemaInto() throws CmdLineException {
+        mSchema.parseInto(mArgs, 0, mTarget);
+        return mTarget;
+    }
+
+    /**
+     * Declares the arguments and parses them with a fresh
+     * {@link CommandLineParser}, the typical usage from a <code>main</code>.
+     */
+    @Benchmark
+    public ParsedArguments commandLineParser() throws CmdLineException {
+        final CommandLineParser parser = CommandLineParser.from(mArgs);
+        final int count = Arguments.countOf(size);
+        if ("switches".equals(shape)) {
+            for (int i = 0; i < count; i++) {
+                parser.addSwitch(Arguments.nameOf(i), true, false);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                parser.addPositional(Arguments.nameOf(i), i + 1);
+            }
+        }
+        return parser.parse();
+    }
+}
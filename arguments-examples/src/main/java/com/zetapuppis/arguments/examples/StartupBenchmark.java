@@ -0,0 +1,52 @@
+package com.zetapuppis.arguments.examples;
+
+import com.zetapuppis.arguments.CmdLineException;
+import com.zetapuppis.arguments.CommandLineParser;
+import com.zetapuppis.arguments.ParsedArguments;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the time from the start of the process to the moment the
+ * command line of {@link MixedStyleExample} has been parsed, to compare
+ * a plain JVM with a class data sharing archive and a native image (see
+ * <code>startup-benchmark.sh</code>).
+ * <p>
+ * Expected output:
+ * <pre>
+ *   startup-benchmark add --op1 5 --op2 3
+ *   parsed in 41 ms since startup (3 ms in main)
+ * </pre>
+ */
+public class StartupBenchmark {
+    public static void main(String[] args) {
+        final long mainStart = System.nanoTime();
+        final ParsedArguments parsed;
+
+        try {
+            parsed = CommandLineParser.from(args)
+                    .addPositional("op", 1)
+                    .addSwitch("op1", true, true)
+                    .addSwitch("op2", true, true)
+                    .addSwitch("easter-egg", false, false)
+                    .parse();
+
+            parsed.getChoice("op", new String[]{"add", "sub"});
+            parsed.getInt("op1");
+            parsed.getInt("op2");
+            parsed.has("easter-egg");
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        final long parsedAt = System.currentTimeMillis();
+        final long inMain = (System.nanoTime() - mainStart) / 1000000;
+        // read only after parsing, so that loading the management classes
+        // isn't measured
+        final long startTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+        System.out.println(String.format("parsed in %d ms since startup (%d ms in main)",
+                parsedAt - startTime, inMain));
+    }
+}
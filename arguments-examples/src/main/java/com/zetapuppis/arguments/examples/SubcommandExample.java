@@ -0,0 +1,51 @@
+package com.zetapuppis.arguments.examples;
+
+import com.zetapuppis.arguments.CmdLineException;
+import com.zetapuppis.arguments.CommandDispatcher;
+import com.zetapuppis.arguments.ParsedArguments;
+import com.zetapuppis.arguments.ParsedCommand;
+import com.zetapuppis.arguments.ParserSchema;
+
+/**
+ * Expected output:
+ * <pre>
+ *   subcommand-example add 5 3
+ *   8
+ *
+ *   subcommand-example negate --value 5
+ *   -5
+ * </pre>
+ */
+public class SubcommandExample {
+    public static void main(String[] args) {
+        final ParsedCommand command;
+        final ParsedArguments parsed;
+        final int result;
+
+        try {
+            // each schema is only built if its subcommand is selected
+            command = CommandDispatcher.builder()
+                    .addCommand("add", () -> ParserSchema.builder()
+                            .addPositional("op1", 1)
+                            .addPositional("op2", 2)
+                            .build())
+                    .addCommand("negate", () -> ParserSchema.builder()
+                            .addSwitch("value", true, true)
+                            .build())
+                    .build()
+                    .parse(args);
+
+            parsed = command.getArguments();
+            if (command.getName().equals("add")) {
+                result = parsed.getInt("op1") + parsed.getInt("op2");
+            } else {
+                result = -parsed.getInt("value");
+            }
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        System.out.println(result);
+    }
+}
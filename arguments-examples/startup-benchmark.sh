@@ -0,0 +1,50 @@
+#!/bin/sh
+# Compares the time to parsed arguments of StartupBenchmark on a plain JVM,
+# with a class data sharing archive (JDK 13+) and as a native image (built
+# with `mvn -Pnative package` when GraalVM is available).
+#
+# usage: startup-benchmark.sh [runs]
+set -e
+
+RUNS=${1:-10}
+DIR=$(cd "$(dirname "$0")" && pwd)
+# class data sharing archives only accept jars on the class path
+CP="$DIR/target/arguments-examples-0.1-SNAPSHOT.jar:$DIR/../arguments/target/arguments-0.1-SNAPSHOT.jar"
+MAIN=com.zetapuppis.arguments.examples.StartupBenchmark
+ARGS="add --op1 5 --op2 3"
+ARCHIVE="$DIR/target/startup-benchmark.jsa"
+
+if [ ! -f "$DIR/target/arguments-examples-0.1-SNAPSHOT.jar" ]; then
+    echo "run 'mvn package' first" >&2
+    exit 1
+fi
+
+# runs the given command RUNS times and prints the average of the
+# milliseconds it reports
+measure() {
+    label=$1
+    shift
+    total=0
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        ms=$("$@" $ARGS | sed -n 's/^parsed in \([0-9]*\) ms.*/\1/p')
+        total=$((total + ms))
+        i=$((i + 1))
+    done
+    echo "$label: $((total / RUNS)) ms"
+}
+
+measure "jvm" java -Xshare:off -cp "$CP" $MAIN
+measure "jvm (default CDS)" java -cp "$CP" $MAIN
+
+if java -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$CP" $MAIN $ARGS > /dev/null 2>&1; then
+    measure "jvm (application CDS)" java -XX:SharedArchiveFile="$ARCHIVE" -cp "$CP" $MAIN
+else
+    echo "jvm (application CDS): not supported by this JVM"
+fi
+
+if [ -x "$DIR/target/startup-benchmark" ]; then
+    measure "native" "$DIR/target/startup-benchmark"
+else
+    echo "native: run 'mvn -Pnative package' with GraalVM first"
+fi
@@ -0,0 +1,156 @@
+package com.zetapuppis.arguments.processor;
+
+/**
+ * An annotated field, as seen by the generated parser.
+ */
+/* package */ final class ArgumentField {
+    /**
+     * How the value of a field is declared in the schema and read back.
+     */
+    /* package */ enum Kind {
+        FLAG("stringKey", false),
+        STRING("stringKey", true),
+        INT("intKey", true),
+        CHAR("charKey", true),
+        FILE("fileKey", true),
+        STRINGS("stringKey", false),
+        INTS("stringKey", false),
+        LONGS("stringKey", false);
+
+        private final String mKeyFactory;
+        private final boolean mSingleValue;
+
+        Kind(final String keyFactory, final boolean singleValue) {
+            mKeyFactory = keyFactory;
+            mSingleValue = singleValue;
+        }
+
+        /**
+         * Returns the {@link com.zetapuppis.arguments.ParserSchema} method
+         * that creates the key for fields of this kind.
+         */
+        /* package */ String getKeyFactory() {
+            return mKeyFactory;
+        }
+
+        /**
+         * Returns whether fields of this kind take exactly one value, and
+         * so can be positional keywords.
+         */
+        /* package */ boolean isSingleValue() {
+            return mSingleValue;
+        }
+
+        /* package */ boolean isRepeatable() {
+            return this == STRINGS || this == INTS || this == LONGS;
+        }
+    }
+
+    private final String mFieldName;
+    private final Kind mKind;
+    private final String mName;
+    private final String mShortName;
+    private final boolean mRequired;
+    private final boolean mPositional;
+    // 0 for switches
+    private final int mPosition;
+
+    private ArgumentField(final String fieldName,
+                          final Kind kind,
+                          final String name,
+                          final String shortName,
+                          final boolean required,
+                          final boolean positional,
+                          final int position) {
+        mFieldName = fieldName;
+        mKind = kind;
+        mName = name;
+        mShortName = shortName;
+        mRequired = required;
+        mPositional = positional;
+        mPosition = position;
+    }
+
+    /* package */ static ArgumentField positional(final String fieldName,
+                                                  final Kind kind,
+                                                  final String name,
+                                                  final int position) {
+        return new ArgumentField(fieldName, kind, name, "", true, true, position);
+    }
+
+    /* package */ static ArgumentField switchField(final String fieldName,
+                                                   final Kind kind,
+                                                   final String name,
+                                                   final String shortName,
+                                                   final boolean required) {
+        return new ArgumentField(fieldName, kind, name, shortName, required, false, 0);
+    }
+
+    /* package */ String getFieldName() {
+        return mFieldName;
+    }
+
+    /* package */ Kind getKind() {
+        return mKind;
+    }
+
+    /* package */ String getName() {
+        return mName;
+    }
+
+    /* package */ String getShortName() {
+        return mShortName;
+    }
+
+    /* package */ boolean isRequired() {
+        return mRequired;
+    }
+
+    /* package */ boolean isPositional() {
+        return mPositional;
+    }
+
+    /* package */ int getPosition() {
+        return mPosition;
+    }
+
+    /**
+     * Converts a camel case field name to a switch name, with words
+     * separated by dashes (<code>dryRun</code> becomes <code>dry-run</code>).
+     * @param fieldName a field name
+     * @return the switch name
+     */
+    /* package */ static String toSwitchName(final String fieldName) {
+        final StringBuilder name = new StringBuilder(fieldName.length() + 4);
+        for (int i = 0; i < fieldName.length(); i++) {
+            final char c = fieldName.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    name.append('-');
+                }
+                name.append(Character.toLowerCase(c));
+            } else {
+                name.append(c == '_' ? '-' : c);
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Converts a camel case field name to a constant name
+     * (<code>dryRun</code> becomes <code>DRY_RUN</code>).
+     * @param fieldName a field name
+     * @return the constant name
+     */
+    /* package */ static String toConstantName(final String fieldName) {
+        final StringBuilder name = new StringBuilder(fieldName.length() + 4);
+        for (int i = 0; i < fieldName.length(); i++) {
+            final char c = fieldName.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                name.append('_');
+            }
+            name.append(Character.toUpperCase(c));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,337 @@
+package com.zetapuppis.arguments.processor;
+
+import com.zetapuppis.arguments.annotations.Positional;
+import com.zetapuppis.arguments.annotations.Switch;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a parser for every class with fields annotated with
+ * {@link Switch} or {@link Positional}, in the class itself or in its
+ * superclasses.
+ * <p>
+ * The parser of <code>Options</code> is named <code>OptionsParser</code>
+ * (<code>Outer_InnerParser</code> for nested classes) and lives in the same
+ * package. Inherited fields come first, as with
+ * <code>ArgumentBinder</code>. Mistakes in the definition (unsupported
+ * field types, duplicate names, positions that are not contiguous,
+ * inherited fields that the parser can't access) are reported as
+ * compilation errors.
+ * <p>
+ * Subclasses may not declare any annotated field, so every class being
+ * compiled is inspected and no annotation is claimed.
+ */
+public final class ArgumentsProcessor extends AbstractProcessor {
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        final Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            addTypes(type, types);
+        }
+
+        for (TypeElement type : types) {
+            final List<VariableElement> fields = annotatedFields(type);
+            if (fields.isEmpty()) {
+                continue;
+            }
+            if (!canHaveParser(type) && !declaresAny(type, fields)) {
+                // only inherits its arguments, it doesn't need a parser of its own
+                continue;
+            }
+            generate(type, fields);
+        }
+        return false;
+    }
+
+    // adds the given type and the types nested in it
+    private static void addTypes(final TypeElement type, final Set<TypeElement> types) {
+        types.add(type);
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            addTypes(nested, types);
+        }
+    }
+
+    // annotated fields of the given class, superclasses first
+    private List<VariableElement> annotatedFields(final TypeElement type) {
+        final List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+
+        final List<VariableElement> fields = new ArrayList<VariableElement>();
+        for (TypeElement current : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getAnnotation(Switch.class) != null || field.getAnnotation(Positional.class) != null) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    // the superclass of the given type, or null if it has none but Object
+    private TypeElement superclassOf(final TypeElement type) {
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type.asType())) {
+            final Element element = processingEnv.getTypeUtils().asElement(supertype);
+            if (element != null && element.getKind() == ElementKind.CLASS
+                    && !((TypeElement) element).getQualifiedName().contentEquals("java.lang.Object")) {
+                return (TypeElement) element;
+            }
+        }
+        return null;
+    }
+
+    private static boolean declaresAny(final TypeElement type, final List<VariableElement> fields) {
+        for (VariableElement field : fields) {
+            if (field.getEnclosingElement() == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean canHaveParser(final TypeElement type) {
+        return !type.getModifiers().contains(Modifier.PRIVATE)
+                && (type.getNestingKind() != NestingKind.MEMBER || type.getModifiers().contains(Modifier.STATIC));
+    }
+
+    private void generate(final TypeElement type, final List<VariableElement> elements) {
+        if (!canHaveParser(type)) {
+            error(type, "classes with argument fields must be neither private nor inner classes");
+            return;
+        }
+
+        final List<ArgumentField> positionals = new ArrayList<ArgumentField>();
+        final List<ArgumentField> switches = new ArrayList<ArgumentField>();
+        final Set<String> names = new HashSet<String>();
+        boolean valid = true;
+
+        for (VariableElement element : elements) {
+            if (element.getEnclosingElement() != type && !isInherited(type, element)) {
+                valid = false;
+                continue;
+            }
+            final ArgumentField field = toArgumentField(element);
+            if (field == null) {
+                valid = false;
+                continue;
+            }
+            if (!names.add(field.getName())) {
+                error(element, String.format("'%s' is a duplicate argument name", field.getName()));
+                valid = false;
+                continue;
+            }
+            (field.isPositional() ? positionals : switches).add(field);
+        }
+
+        Collections.sort(positionals, new Comparator<ArgumentField>() {
+            @Override
+            public int compare(final ArgumentField first, final ArgumentField second) {
+                return Integer.compare(first.getPosition(), second.getPosition());
+            }
+        });
+        for (int i = 0; i < positionals.size(); i++) {
+            if (positionals.get(i).getPosition() != i + 1) {
+                error(type, String.format("keyword %s can't be at position %d",
+                        positionals.get(i).getName(), positionals.get(i).getPosition()));
+                valid = false;
+                break;
+            }
+        }
+        if (!valid) {
+            return;
+        }
+
+        final List<ArgumentField> fields = new ArrayList<ArgumentField>(positionals);
+        fields.addAll(switches);
+        write(type, fields);
+    }
+
+    // checks that the parser of the given type can write the inherited field
+    private boolean isInherited(final TypeElement type, final VariableElement element) {
+        final TypeElement declaring = (TypeElement) element.getEnclosingElement();
+        final String fieldName = element.getSimpleName().toString();
+        if (!element.getModifiers().contains(Modifier.PUBLIC)
+                && !processingEnv.getElementUtils().getPackageOf(declaring)
+                        .equals(processingEnv.getElementUtils().getPackageOf(type))) {
+            error(type, String.format("inherited argument field %s of %s must be public to be set from %s",
+                    fieldName, declaring.getQualifiedName(), processingEnv.getElementUtils().getPackageOf(type)));
+            return false;
+        }
+        for (TypeElement current = type; current != declaring; current = superclassOf(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getSimpleName().contentEquals(fieldName)) {
+                    error(field, String.format("%s hides the argument field inherited from %s",
+                            fieldName, declaring.getQualifiedName()));
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private ArgumentField toArgumentField(final VariableElement element) {
+        final Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                || modifiers.contains(Modifier.FINAL)) {
+            error(element, "argument fields must not be private, static or final");
+            return null;
+        }
+
+        final Positional positional = element.getAnnotation(Positional.class);
+        final Switch switchArgument = element.getAnnotation(Switch.class);
+        if (positional != null && switchArgument != null) {
+            error(element, "a field can't be both a positional keyword and a switch");
+            return null;
+        }
+
+        final ArgumentField.Kind kind = kindOf(element.asType());
+        if (kind == null) {
+            error(element, String.format("unsupported argument type %s", element.asType()));
+            return null;
+        }
+
+        final String fieldName = element.getSimpleName().toString();
+        if (positional != null) {
+            if (!kind.isSingleValue()) {
+                error(element, String.format("unsupported positional keyword type %s", element.asType()));
+                return null;
+            }
+            final String name = positional.name().isEmpty() ? fieldName : positional.name();
+            if (positional.value() < 1) {
+                // positions start at 1
+                error(element, String.format("keyword %s can't be at position %d", name, positional.value()));
+                return null;
+            }
+            return ArgumentField.positional(fieldName, kind, name, positional.value());
+        }
+
+        final String name = switchArgument.name().isEmpty()
+                ? ArgumentField.toSwitchName(fieldName) : switchArgument.name();
+        return ArgumentField.switchField(fieldName, kind, name, switchArgument.shortName(), switchArgument.required());
+    }
+
+    private ArgumentField.Kind kindOf(final TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return ArgumentField.Kind.FLAG;
+            case INT:
+                return ArgumentField.Kind.INT;
+            case CHAR:
+                return ArgumentField.Kind.CHAR;
+            case ARRAY:
+                final TypeKind component = ((ArrayType) type).getComponentType().getKind();
+                if (component == TypeKind.INT) {
+                    return ArgumentField.Kind.INTS;
+                } else if (component == TypeKind.LONG) {
+                    return ArgumentField.Kind.LONGS;
+                }
+                return null;
+            case DECLARED:
+                return kindOf((DeclaredType) type);
+            default:
+                return null;
+        }
+    }
+
+    private ArgumentField.Kind kindOf(final DeclaredType type) {
+        final String name = ((TypeElement) type.asElement()).getQualifiedName().toString();
+        if (name.equals("java.lang.String")) {
+            return ArgumentField.Kind.STRING;
+        } else if (name.equals("java.lang.Boolean")) {
+            return ArgumentField.Kind.FLAG;
+        } else if (name.equals("java.lang.Integer")) {
+            return ArgumentField.Kind.INT;
+        } else if (name.equals("java.lang.Character")) {
+            return ArgumentField.Kind.CHAR;
+        } else if (name.equals("java.io.File")) {
+            return ArgumentField.Kind.FILE;
+        } else if (name.equals("java.util.List") && type.getTypeArguments().size() == 1) {
+            final TypeMirror argument = type.getTypeArguments().get(0);
+            if (argument.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) argument).asElement())
+                    .getQualifiedName().contentEquals("java.lang.String")) {
+                return ArgumentField.Kind.STRINGS;
+            }
+        }
+        return null;
+    }
+
+    private void write(final TypeElement type, final List<ArgumentField> fields) {
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+
+        // name of the type relative to its package (Outer.Inner)
+        final String qualifiedName = type.getQualifiedName().toString();
+        final String targetName = packageName.isEmpty()
+                ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        final String parserName = targetName.replace('.', '_') + "Parser";
+
+        final String source = new ParserWriter(packageName, parserName, targetName, isInstantiable(type), fields)
+                .write();
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    packageName.isEmpty() ? parserName : packageName + "." + parserName, type);
+            final Writer writer = file.openWriter();
+            try {
+                writer.write(source);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            error(type, String.format("cannot write %s: %s", parserName, ex.getMessage()));
+        }
+    }
+
+    private static boolean isInstantiable(final TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(Modifier.PRIVATE);
+            }
+        }
+        return false;
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
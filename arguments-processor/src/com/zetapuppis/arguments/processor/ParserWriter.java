@@ -0,0 +1,221 @@
+package com.zetapuppis.arguments.processor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the source code of the parser generated for an annotated class.
+ * <p>
+ * The generated class declares the schema once, with all the argument
+ * names as constants, and then copies each value straight into its field
+ * through an {@link com.zetapuppis.arguments.ArgumentKey}: there is no
+ * reflection and no lookup by name at parse time.
+ */
+/* package */ final class ParserWriter {
+    private static final String INDENT = "    ";
+
+    private final StringBuilder mSource = new StringBuilder(4096);
+    private final String mPackageName;
+    private final String mParserName;
+    // the annotated class, as it can be referred from the parser's package
+    private final String mTargetName;
+    private final boolean mInstantiable;
+    private final List<ArgumentField> mFields;
+    private final String[] mKeyNames;
+
+    /**
+     * @param packageName package of the annotated class, empty for the
+     *                    default package
+     * @param parserName simple name of the generated class
+     * @param targetName name of the annotated class, relative to its package
+     * @param instantiable whether the annotated class has an accessible
+     *                     constructor without arguments
+     * @param fields the annotated fields, positional keywords sorted by
+     *               position first
+     */
+    /* package */ ParserWriter(final String packageName,
+                               final String parserName,
+                               final String targetName,
+                               final boolean instantiable,
+                               final List<ArgumentField> fields) {
+        mPackageName = packageName;
+        mParserName = parserName;
+        mTargetName = targetName;
+        mInstantiable = instantiable;
+        mFields = fields;
+
+        mKeyNames = new String[fields.size()];
+        final Set<String> used = new HashSet<String>();
+        for (int i = 0; i < fields.size(); i++) {
+            String name = "KEY_" + ArgumentField.toConstantName(fields.get(i).getFieldName());
+            while (!used.add(name)) {
+                name = name + "_";
+            }
+            mKeyNames[i] = name;
+        }
+    }
+
+    /* package */ String write() {
+        if (!mPackageName.isEmpty()) {
+            line(0, "package " + mPackageName + ";");
+            line(0, "");
+        }
+        line(0, "import com.zetapuppis.arguments.ArgumentKey;");
+        line(0, "import com.zetapuppis.arguments.ArgumentTypeException;");
+        line(0, "import com.zetapuppis.arguments.CmdLineException;");
+        line(0, "import com.zetapuppis.arguments.ParsedArguments;");
+        line(0, "import com.zetapuppis.arguments.ParserSchema;");
+        line(0, "");
+        line(0, "/**");
+        line(0, " * Parser for {@link " + mTargetName + "}, generated from its annotated fields.");
+        line(0, " * Do not edit.");
+        line(0, " */");
+        line(0, "public final class " + mParserName + " {");
+
+        writeConstants();
+        line(0, "");
+        line(1, "private " + mParserName + "() {}");
+        line(0, "");
+        writeSchema();
+        line(0, "");
+        writeParse();
+        line(0, "");
+        writeBind();
+        line(0, "}");
+        return mSource.toString();
+    }
+
+    private void writeConstants() {
+        line(1, "private static final ParserSchema SCHEMA = buildSchema();");
+        for (int i = 0; i < mFields.size(); i++) {
+            final ArgumentField field = mFields.get(i);
+            line(1, "private static final ArgumentKey<" + keyType(field.getKind()) + "> " + mKeyNames[i]
+                    + " = SCHEMA." + field.getKind().getKeyFactory() + "(" + literal(field.getName()) + ");");
+        }
+    }
+
+    private void writeSchema() {
+        line(1, "private static ParserSchema buildSchema() {");
+        line(2, "try {");
+        line(3, "return ParserSchema.builder()");
+        for (ArgumentField field : mFields) {
+            if (field.isPositional()) {
+                line(5, ".addPositional(" + literal(field.getName()) + ", " + field.getPosition() + ")");
+            } else if (field.getKind().isRepeatable()) {
+                line(5, ".addRepeatableSwitch(" + literal(field.getName()) + ", "
+                        + literal(field.getShortName()) + ", " + field.isRequired() + ")");
+            } else {
+                line(5, ".addSwitch(" + literal(field.getName()) + ", " + literal(field.getShortName()) + ", "
+                        + (field.getKind() != ArgumentField.Kind.FLAG) + ", " + field.isRequired() + ")");
+            }
+        }
+        line(5, ".build();");
+        line(2, "} catch (CmdLineException ex) {");
+        line(3, "// the definition has been validated at compile time");
+        line(3, "throw new IllegalStateException(ex);");
+        line(2, "}");
+        line(1, "}");
+        line(0, "");
+        line(1, "/**");
+        line(1, " * Returns the schema of {@link " + mTargetName + "}.");
+        line(1, " */");
+        line(1, "public static ParserSchema schema() {");
+        line(2, "return SCHEMA;");
+        line(1, "}");
+    }
+
+    private void writeParse() {
+        if (mInstantiable) {
+            line(1, "/**");
+            line(1, " * Parses the given command line into a new {@link " + mTargetName + "}.");
+            line(1, " */");
+            line(1, "public static " + mTargetName + " parse(final String[] args) throws CmdLineException {");
+            line(2, "final " + mTargetName + " target = new " + mTargetName + "();");
+            line(2, "bind(SCHEMA.parse(args), target);");
+            line(2, "return target;");
+            line(1, "}");
+            line(0, "");
+        }
+        line(1, "/**");
+        line(1, " * Parses the given command line into the fields of the given target.");
+        line(1, " */");
+        line(1, "public static void parse(final String[] args, final " + mTargetName + " target)"
+                + " throws CmdLineException {");
+        line(2, "bind(SCHEMA.parse(args), target);");
+        line(1, "}");
+    }
+
+    private void writeBind() {
+        line(1, "/**");
+        line(1, " * Copies arguments parsed by {@link #schema()} into the fields of the given target,");
+        line(1, " * fields of missing arguments are left untouched.");
+        line(1, " */");
+        line(1, "public static void bind(final ParsedArguments parsed, final " + mTargetName + " target)"
+                + " throws ArgumentTypeException {");
+        for (int i = 0; i < mFields.size(); i++) {
+            final ArgumentField field = mFields.get(i);
+            line(2, "if (parsed.has(" + mKeyNames[i] + ")) {");
+            line(3, "target." + field.getFieldName() + " = " + read(field, mKeyNames[i]) + ";");
+            line(2, "}");
+        }
+        line(1, "}");
+    }
+
+    private static String read(final ArgumentField field, final String key) {
+        switch (field.getKind()) {
+            case FLAG:
+                return "true";
+            case STRINGS:
+                // the target owns its list, rather than a view over the parsed values
+                return "new java.util.ArrayList<String>(parsed.getStrings(" + key + "))";
+            case INTS:
+                return "parsed.getInts(" + key + ")";
+            case LONGS:
+                return "parsed.getLongs(" + key + ")";
+            default:
+                return "parsed.get(" + key + ")";
+        }
+    }
+
+    private static String keyType(final ArgumentField.Kind kind) {
+        switch (kind) {
+            case INT:
+                return "Integer";
+            case CHAR:
+                return "Character";
+            case FILE:
+                return "java.io.File";
+            default:
+                return "String";
+        }
+    }
+
+    private static String literal(final String value) {
+        final StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                // unicode escapes would be translated before the literal is read
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void line(final int indent, final String code) {
+        if (!code.isEmpty()) {
+            for (int i = 0; i < indent; i++) {
+                mSource.append(INDENT);
+            }
+            mSource.append(code);
+        }
+        mSource.append('\n');
+    }
+}
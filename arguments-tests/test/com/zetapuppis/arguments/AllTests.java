@@ -1,5 +1,6 @@
 package com.zetapuppis.arguments;
 
+import com.zetapuppis.arguments.annotations.AnnotationProcessorTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
@@ -10,7 +11,20 @@ import org.junit.runners.Suite.SuiteClasses;
                 PositionalArgumentTest.class,
                 PositionalParserTest.class,
                 ParsedArgumentsTest.class,
-                SwitchParsingTest.class })
+                SwitchParsingTest.class,
+                ParserSchemaTest.class,
+                ArgumentKeyTest.class,
+                ArgumentFileTest.class,
+                LazyArgumentsTest.class,
+                FallbackTest.class,
+                CommandDispatcherTest.class,
+                ArgumentBinderTest.class,
+                ParseListenerTest.class,
+                ValuePoolTest.class,
+                ParseCacheTest.class,
+                RestArgumentsTest.class,
+                ArgumentInputTest.class,
+                AnnotationProcessorTest.class })
 public class AllTests {
 
 }
@@ -0,0 +1,218 @@
+package com.zetapuppis.arguments;
+
+import com.zetapuppis.arguments.annotations.Positional;
+import com.zetapuppis.arguments.annotations.Switch;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArgumentBinderTest {
+    public static class Base {
+        @Switch(shortName = "v")
+        boolean verbose;
+    }
+
+    public static class Options extends Base {
+        @Positional(1)
+        String command;
+
+        @Positional(value = 2, name = "input-file")
+        File input;
+
+        @Switch(required = true)
+        int threads;
+
+        @Switch
+        Integer retries;
+
+        @Switch(name = "out")
+        String output = "default";
+
+        @Switch
+        char separator = ',';
+
+        @Switch(shortName = "D")
+        List<String> define;
+
+        @Switch
+        long[] ids;
+
+        @Switch
+        int[] ports;
+
+        @Switch
+        boolean dryRun;
+    }
+
+    public static class NoConstructor {
+        @Switch
+        String name;
+
+        public NoConstructor(final String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Compiles a class that the annotation processor would reject, without
+     * running the processor.
+     */
+    private static Class<?> compile(final String name, final String source) throws Exception {
+        final File directory = Files.createTempDirectory("arguments").toFile();
+        final File file = new File(directory, name + ".java");
+        Files.write(file.toPath(), source.getBytes("UTF-8"));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final int result = compiler.run(null, null, null,
+                "-proc:none", "-classpath", System.getProperty("java.class.path"),
+                "-d", directory.getPath(), file.getPath());
+        assertEquals(0, result);
+
+        final URLClassLoader loader = new URLClassLoader(
+                new URL[] { directory.toURI().toURL() }, ArgumentBinderTest.class.getClassLoader());
+        return loader.loadClass(name);
+    }
+
+    private static String fixture(final String name, final String fields) {
+        return "import com.zetapuppis.arguments.annotations.*;\n"
+                + "public class " + name + " {\n" + fields + "\n}\n";
+    }
+
+    @Test
+    public void testParse() throws CmdLineException {
+        final Options options = ArgumentBinder.of(Options.class).parse(new String[] {
+                "run", "in.txt", "-v", "--threads", "4", "--retries", "2", "--separator", ";",
+                "-D", "a=1", "-D", "b=2", "--ids", "10", "--ids", "20", "--ports", "80", "--dry-run" });
+
+        assertEquals("run", options.command);
+        assertEquals(new File("in.txt"), options.input);
+        assertTrue(options.verbose);
+        assertEquals(4, options.threads);
+        assertEquals(Integer.valueOf(2), options.retries);
+        assertEquals(';', options.separator);
+        assertEquals(Arrays.asList("a=1", "b=2"), options.define);
+        assertArrayEquals(new long[] { 10, 20 }, options.ids);
+        assertArrayEquals(new int[] { 80 }, options.ports);
+        assertTrue(options.dryRun);
+    }
+
+    @Test
+    public void testMissingArgumentsKeepTheirValue() throws CmdLineException {
+        final Options options = ArgumentBinder.of(Options.class).parse(new String[] {
+                "run", "in.txt", "--threads", "4" });
+
+        assertFalse(options.verbose);
+        assertNull(options.retries);
+        assertEquals("default", options.output);
+        assertEquals(',', options.separator);
+        assertNull(options.define);
+        assertNull(options.ids);
+        assertFalse(options.dryRun);
+    }
+
+    @Test
+    public void testAllConversionErrors() throws CmdLineException {
+        final ArgumentBinder<Options> binder = ArgumentBinder.of(Options.class);
+        final Options options = new Options();
+        try {
+            binder.parse(new String[] { "run", "in.txt", "--threads", "four", "--out", "o.txt",
+                    "--separator", "ab", "--ids", "x" }, options);
+            fail("ArgumentBindingException not thrown");
+        } catch (ArgumentBindingException ex) {
+            assertEquals(3, ex.getErrors().size());
+            assertEquals(3, ex.getMessage().split("\n").length);
+        }
+
+        // valid values are still copied
+        assertEquals("run", options.command);
+        assertEquals("o.txt", options.output);
+        assertEquals(0, options.threads);
+    }
+
+    @Test
+    public void testBind() throws CmdLineException {
+        final ArgumentBinder<Options> binder = ArgumentBinder.of(Options.class);
+        final ParsedArguments parsed = binder.getSchema().parse(new String[] {
+                "run", "in.txt", "--threads", "4", "-D", "a" });
+        final Options first = new Options();
+        final Options second = new Options();
+        binder.bind(parsed, first);
+        binder.bind(parsed, second);
+
+        assertEquals(4, first.threads);
+        assertEquals(4, second.threads);
+        assertNotSame(first.define, second.define);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForeignArguments() throws CmdLineException {
+        final ParsedArguments parsed = ParserSchema.builder()
+                .addSwitch("threads", true, false)
+                .build()
+                .parse(new String[0]);
+        ArgumentBinder.of(Options.class).bind(parsed, new Options());
+    }
+
+    @Test
+    public void testCached() {
+        assertSame(ArgumentBinder.of(Options.class), ArgumentBinder.of(Options.class));
+    }
+
+    @Test
+    public void testRequired() {
+        try {
+            ArgumentBinder.of(Options.class).parse(new String[] { "run", "in.txt" });
+            fail("SwitchArgumentException not thrown");
+        } catch (CmdLineException ex) {
+            assertTrue(ex instanceof SwitchArgumentException);
+        }
+    }
+
+    @Test
+    public void testPrivateFields() throws Exception {
+        final Class<?> type = compile("PrivateFields", fixture("PrivateFields",
+                "@Switch private int threads; public int threads() { return threads; }"));
+        final Object target = ArgumentBinder.of(type).parse(new String[] { "--threads", "3" });
+        assertEquals(3, type.getMethod("threads").invoke(target));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() throws Exception {
+        ArgumentBinder.of(compile("Unsupported", fixture("Unsupported", "@Switch double ratio;")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFinalField() throws Exception {
+        ArgumentBinder.of(compile("FinalField", fixture("FinalField", "@Switch final String name = \"\";")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() throws Exception {
+        ArgumentBinder.of(compile("Duplicate", fixture("Duplicate",
+                "@Switch String name; @Switch(name = \"name\") String other;")));
+    }
+
+    @Test
+    public void testNoConstructor() throws CmdLineException {
+        final ArgumentBinder<NoConstructor> binder = ArgumentBinder.of(NoConstructor.class);
+        final NoConstructor target = new NoConstructor("initial");
+        binder.parse(new String[] { "--name", "bound" }, target);
+        assertEquals("bound", target.name);
+
+        try {
+            binder.parse(new String[0]);
+            fail("UnsupportedOperationException not thrown");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.zetapuppis.arguments;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+public class ArgumentFileTest {
+    private ParserSchema mSchema;
+    private File mFile;
+
+    @Before
+    public void setUp() throws CmdLineException, IOException {
+        mSchema = ParserSchema.builder()
+                .addPositional("input", 1)
+                .addSwitch("name", "n", true, false)
+                .addSwitch("output", true, false)
+                .addSwitch("verbose", false, false)
+                .expandArgumentFiles()
+                .build();
+        mFile = File.createTempFile("arguments", ".args");
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    private void write(final String content) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(mFile), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testExpansion() throws CmdLineException, IOException {
+        write("input.txt\n--name 'John Doe'\n");
+        final ParsedArguments parsed = mSchema.parse(new String[] { "@" + mFile.getPath(), "--verbose" });
+
+        assertEquals(parsed.getString("input"), "input.txt");
+        assertEquals(parsed.getString("name"), "John Doe");
+        assertTrue(parsed.has("verbose"));
+    }
+
+    @Test
+    public void testQuotingAndComments() throws CmdLineException, IOException {
+        write("# a comment --verbose\n"
+                + "\"in \\\"put\\\" \\\\ \\n\"\n"
+                + "--name ab\\ c\\\n"
+                + "d\n"
+                + "--output ''\n");
+        final ParsedArguments parsed = mSchema.parse(new String[] { "@" + mFile.getPath() });
+
+        assertEquals(parsed.getString("input"), "in \"put\" \\ \\n");
+        assertEquals(parsed.getString("name"), "ab cd");
+        assertEquals(parsed.getString("output"), "");
+        assertFalse(parsed.has("verbose"));
+    }
+
+    @Test
+    public void testEscapedArgument() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.parse(new String[] { "input", "--name", "@@user" });
+        assertEquals(parsed.getString("name"), "@user");
+    }
+
+    @Test
+    public void testExpansionDisabledByDefault() throws CmdLineException {
+        final ParsedArguments parsed = ParserSchema.builder()
+                .addPositional("input", 1)
+                .build()
+                .parse(new String[] { "@input" });
+        assertEquals(parsed.getString("input"), "@input");
+    }
+
+    @Test(expected = ArgumentFileException.class)
+    public void testMissingFile() throws CmdLineException {
+        mSchema.parse(new String[] { "@" + mFile.getPath() + ".missing" });
+    }
+
+    @Test(expected = ArgumentFileException.class)
+    public void testUnterminatedQuote() throws CmdLineException, IOException {
+        write("input --name \"John");
+        mSchema.parse(new String[] { "@" + mFile.getPath() });
+    }
+
+    @Test
+    public void testLargeFile() throws CmdLineException, IOException {
+        final StringBuilder content = new StringBuilder("input\n");
+        int count = 0;
+        while (content.length() <= ArgumentFileReader.MAP_THRESHOLD) {
+            content.append("--name \"välue ").append(count++).append("\"\n");
+        }
+        write(content.toString());
+
+        final ParsedArguments parsed = mSchema.parse(new String[] { "@" + mFile.getPath() });
+        assertEquals(parsed.getString("input"), "input");
+        assertEquals(parsed.getString("name"), "välue " + (count - 1));
+    }
+}
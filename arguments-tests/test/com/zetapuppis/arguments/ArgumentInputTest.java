@@ -0,0 +1,212 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArgumentInputTest {
+    private ParserSchema mSchema;
+    private List<String> mValues;
+
+    @Before
+    public void setUp() throws CmdLineException {
+        mSchema = ParserSchema.builder()
+                .addSwitch("threads", true, false)
+                .addSwitch("verbose", "v", false, false)
+                .build();
+        mValues = new ArrayList<String>();
+    }
+
+    private static ArgumentInput input(final String content, final ArgumentInput.Delimiter delimiter)
+            throws IOException {
+        return ArgumentInput.of(new ByteArrayInputStream(content.getBytes("UTF-8")), delimiter);
+    }
+
+    // returns the given chunks one read at a time, then fails or ends
+    private static class ChunkedChannel implements ReadableByteChannel {
+        private final List<byte[]> mChunks = new ArrayList<byte[]>();
+        private final boolean mFail;
+        private int mReads = 0;
+
+        ChunkedChannel(final boolean fail, final String... chunks) throws IOException {
+            for (String chunk : chunks) {
+                mChunks.add(chunk.getBytes("UTF-8"));
+            }
+            mFail = fail;
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            if (mReads == mChunks.size()) {
+                if (mFail) {
+                    throw new IOException("broken pipe");
+                }
+                return -1;
+            }
+            final byte[] chunk = mChunks.get(mReads++);
+            dst.put(chunk);
+            return chunk.length;
+        }
+
+        int getReads() {
+            return mReads;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testNul() throws CmdLineException, IOException {
+        final ParsedArguments parsed = mSchema.parse(new String[] { "--threads", "4" },
+                input("a.txt\0b c.txt\0\0d\nf.txt\0", ArgumentInput.Delimiter.NUL), mValues::add);
+
+        assertEquals(parsed.getString("threads"), "4");
+        assertEquals(mValues, Arrays.asList("a.txt", "b c.txt", "d\nf.txt"));
+    }
+
+    @Test
+    public void testNewline() throws CmdLineException, IOException {
+        mSchema.parse(new String[0], input("a.txt\r\n\nb.txt\nc.txt", ArgumentInput.Delimiter.NEWLINE),
+                mValues::add);
+        assertEquals(mValues, Arrays.asList("a.txt", "b.txt", "c.txt"));
+    }
+
+    @Test
+    public void testSwitches() throws CmdLineException, IOException {
+        final ParsedArguments parsed = mSchema.parse(new String[0],
+                input("a.txt\n--threads\n8\n-v\nb.txt\n--\n--verbose\n", ArgumentInput.Delimiter.NEWLINE),
+                mValues::add);
+
+        assertEquals(parsed.getInt("threads"), 8);
+        assertTrue(parsed.has("verbose"));
+        assertEquals(mValues, Arrays.asList("a.txt", "b.txt", "--verbose"));
+    }
+
+    @Test
+    public void testPositionals() throws CmdLineException, IOException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .addPositional("target", 2)
+                .build();
+        final ParsedArguments parsed = schema.parse(new String[] { "copy" },
+                input("dest\na.txt\n", ArgumentInput.Delimiter.NEWLINE), mValues::add);
+
+        assertEquals(parsed.getString("command"), "copy");
+        assertEquals(parsed.getString("target"), "dest");
+        assertEquals(mValues, Collections.singletonList("a.txt"));
+    }
+
+    @Test
+    public void testRest() throws CmdLineException, IOException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addSwitch("verbose", "v", false, false)
+                .addRest("files")
+                .build();
+        final ParsedArguments parsed = schema.parse(new String[] { "a.txt" },
+                input("-v\nb.txt\n", ArgumentInput.Delimiter.NEWLINE), mValues::add);
+
+        // the input follows the values of the command line
+        assertFalse(parsed.has("verbose"));
+        assertEquals(parsed.getRest(), Collections.singletonList("a.txt"));
+        assertEquals(mValues, Arrays.asList("-v", "b.txt"));
+    }
+
+    @Test
+    public void testIncremental() throws CmdLineException, IOException {
+        final ChunkedChannel channel = new ChunkedChannel(false, "a.txt\0b.", "txt\0c.txt");
+        final List<Integer> readsAtDelivery = new ArrayList<Integer>();
+        mSchema.parse(new String[0], ArgumentInput.of(channel, ArgumentInput.Delimiter.NUL), value -> {
+            mValues.add(value);
+            readsAtDelivery.add(channel.getReads());
+        });
+
+        assertEquals(mValues, Arrays.asList("a.txt", "b.txt", "c.txt"));
+        // the last value is only complete at the end of the input
+        assertEquals(readsAtDelivery, Arrays.asList(1, 2, 2));
+    }
+
+    @Test
+    public void testLargeInput() throws CmdLineException, IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            content.append("dir/f\u00ecle").append(i).append('\0');
+        }
+        final int[] count = { 0 };
+        mSchema.parse(new String[0], input(content.toString(), ArgumentInput.Delimiter.NUL), value -> {
+            assertEquals(value, "dir/f\u00ecle" + count[0]);
+            count[0]++;
+        });
+        assertEquals(count[0], 100000);
+    }
+
+    @Test
+    public void testCharset() throws CmdLineException, IOException {
+        final ArgumentInput input = ArgumentInput.of(
+                new ByteArrayInputStream("f\u00ecle\n".getBytes("ISO-8859-1")), ArgumentInput.Delimiter.NEWLINE)
+                .withCharset(Charset.forName("ISO-8859-1"));
+        mSchema.parse(new String[0], input, mValues::add);
+        assertEquals(mValues, Collections.singletonList("f\u00ecle"));
+    }
+
+    @Test
+    public void testUnknownSwitch() throws IOException {
+        try {
+            mSchema.parse(new String[0], input("a.txt\n--unknown\nb.txt\n", ArgumentInput.Delimiter.NEWLINE),
+                    mValues::add);
+            fail("SwitchArgumentException not thrown");
+        } catch (CmdLineException ex) {
+            assertTrue(ex instanceof SwitchArgumentException);
+            assertEquals(mValues, Collections.singletonList("a.txt"));
+        }
+    }
+
+    @Test(expected = ArgumentInputException.class)
+    public void testMalformedInput() throws CmdLineException {
+        mSchema.parse(new String[0], ArgumentInput.of(new ByteArrayInputStream(new byte[] { 'a', (byte) 0xff, 0 }),
+                ArgumentInput.Delimiter.NUL), mValues::add);
+    }
+
+    @Test
+    public void testReadError() throws IOException {
+        try {
+            mSchema.parse(new String[0], ArgumentInput.of(new ChunkedChannel(true, "a.txt\n"),
+                    ArgumentInput.Delimiter.NEWLINE), mValues::add);
+            fail("ArgumentInputException not thrown");
+        } catch (CmdLineException ex) {
+            assertTrue(ex instanceof ArgumentInputException);
+            assertTrue(ex.getMessage().contains("broken pipe"));
+            assertEquals(mValues, Collections.singletonList("a.txt"));
+        }
+    }
+
+    @Test
+    public void testCommandLineParser() throws CmdLineException, IOException {
+        final ParseMetrics metrics = new ParseMetrics();
+        final ParsedArguments parsed = CommandLineParser.from(new String[] { "-v" })
+                .addSwitch("verbose", "v", false, false)
+                .withListener(metrics)
+                .parse(input("a.txt\nb.txt\n", ArgumentInput.Delimiter.NEWLINE), mValues::add);
+
+        assertTrue(parsed.has("verbose"));
+        assertEquals(mValues, Arrays.asList("a.txt", "b.txt"));
+        assertEquals(metrics.getTokenCount(), 3);
+    }
+}
@@ -0,0 +1,113 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ArgumentKeyTest {
+    private ParserSchema mSchema;
+
+    @Before
+    public void setUp() throws CmdLineException {
+        mSchema = ParserSchema.builder()
+                .addPositional("input", 1)
+                .addSwitch("threads", "t", true, false)
+                .addSwitch("separator", true, false)
+                .addSwitch("verbose", false, false)
+                .build();
+    }
+
+    @Test
+    public void testTypedKeys() throws CmdLineException {
+        final ArgumentKey<File> input = mSchema.fileKey("input");
+        final ArgumentKey<Integer> threads = mSchema.intKey("threads");
+        final ArgumentKey<Character> separator = mSchema.charKey("separator");
+        final ArgumentKey<String> verbose = mSchema.stringKey("verbose");
+
+        final ParsedArguments parsed = mSchema.parse(new String[] {
+                "in.txt", "-t", "8", "--separator", ",", "--verbose"
+        });
+
+        assertEquals(parsed.get(input), new File("in.txt"));
+        assertEquals(parsed.get(threads), Integer.valueOf(8));
+        assertEquals(parsed.get(separator), Character.valueOf(','));
+        assertTrue(parsed.has(verbose));
+        assertEquals(input.getName(), "input");
+    }
+
+    @Test
+    public void testListValues() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addRepeatableSwitch("port", "p", false)
+                .addSwitch("threads", true, false)
+                .build();
+        final ArgumentKey<String> port = schema.stringKey("port");
+        final ArgumentKey<String> threads = schema.stringKey("threads");
+        final ParsedArguments parsed = schema.parse(new String[] { "-p", "80", "-p", "443", "--threads", "2" });
+
+        assertEquals(parsed.getStrings(port), Arrays.asList("80", "443"));
+        assertArrayEquals(parsed.getInts(port), new int[] { 80, 443 });
+        assertArrayEquals(parsed.getLongs(port), new long[] { 80, 443 });
+        assertEquals(parsed.getStrings(threads), Collections.singletonList("2"));
+        assertArrayEquals(parsed.snapshot().getInts(port), new int[] { 80, 443 });
+        assertTrue(schema.parse(new String[0]).getStrings(port).isEmpty());
+    }
+
+    @Test
+    public void testDefaults() throws CmdLineException {
+        final ArgumentKey<Integer> threads = mSchema.intKey("threads");
+        final ParsedArguments parsed = mSchema.parse(new String[] { "in.txt" });
+
+        assertFalse(parsed.has(threads));
+        assertEquals(parsed.get(threads, 4), Integer.valueOf(4));
+    }
+
+    @Test(expected = ArgumentTypeException.class)
+    public void testMissingValue() throws CmdLineException {
+        mSchema.parse(new String[] { "in.txt" }).get(mSchema.intKey("threads"));
+    }
+
+    @Test(expected = ArgumentTypeException.class)
+    public void testConversionError() throws CmdLineException {
+        mSchema.parse(new String[] { "in.txt", "--threads", "many" }).get(mSchema.intKey("threads"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUndeclaredArgument() {
+        mSchema.intKey("undeclared");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyFromOtherSchema() throws CmdLineException {
+        final ParserSchema other = ParserSchema.builder()
+                .addPositional("input", 1)
+                .build();
+        mSchema.parse(new String[] { "in.txt" }).get(other.stringKey("input"));
+    }
+
+    @Test
+    public void testNameAndKeyAccessAgree() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.parse(new String[] { "in.txt", "--threads", "2" });
+        parsed.set("threads", "3");
+        parsed.set("extra", "value");
+
+        assertEquals(parsed.get(mSchema.intKey("threads")), Integer.valueOf(3));
+        assertEquals(parsed.getString("extra"), "value");
+
+        final Map<String, String> entries = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : parsed) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(entries.size(), 3);
+        assertEquals(entries.get("input"), "in.txt");
+        assertEquals(entries.get("threads"), "3");
+        assertEquals(entries.get("extra"), "value");
+    }
+}
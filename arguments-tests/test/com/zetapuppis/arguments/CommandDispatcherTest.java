@@ -0,0 +1,123 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CommandDispatcherTest {
+    private AtomicInteger mIngestBuilds;
+    private AtomicInteger mCompactBuilds;
+    private CommandDispatcher mDispatcher;
+
+    @Before
+    public void setUp() throws CmdLineException {
+        mIngestBuilds = new AtomicInteger();
+        mCompactBuilds = new AtomicInteger();
+        mDispatcher = CommandDispatcher.builder()
+                .addCommand("ingest", () -> {
+                    mIngestBuilds.incrementAndGet();
+                    return ParserSchema.builder()
+                            .addPositional("input", 1)
+                            .addSwitch("verbose", "v", false, false)
+                            .build();
+                })
+                .addCommand("compact", () -> {
+                    mCompactBuilds.incrementAndGet();
+                    return ParserSchema.builder()
+                            .addSwitch("level", true, true)
+                            .build();
+                })
+                .build();
+    }
+
+    @Test
+    public void testDispatch() throws CmdLineException {
+        final ParsedCommand command = mDispatcher.parse(new String[] { "ingest", "data.txt", "-v" });
+
+        assertEquals(command.getName(), "ingest");
+        assertEquals(command.getArguments().getString("input"), "data.txt");
+        assertTrue(command.getArguments().has("verbose"));
+    }
+
+    @Test
+    public void testSchemasBuiltOnFirstUse() throws CmdLineException {
+        assertEquals(mIngestBuilds.get(), 0);
+        assertEquals(mCompactBuilds.get(), 0);
+
+        mDispatcher.parse(new String[] { "ingest", "first.txt" });
+        mDispatcher.parse(new String[] { "ingest", "second.txt" });
+
+        assertEquals(mIngestBuilds.get(), 1);
+        assertEquals(mCompactBuilds.get(), 0);
+    }
+
+    @Test
+    public void testOffset() throws CmdLineException {
+        final ParsedCommand command = mDispatcher.parse(new String[] { "tool", "compact", "--level", "3" }, 1);
+
+        assertEquals(command.getName(), "compact");
+        assertEquals(command.getArguments().getInt("level"), 3);
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testUnknownCommand() throws CmdLineException {
+        mDispatcher.parse(new String[] { "unknown" });
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testMissingCommand() throws CmdLineException {
+        mDispatcher.parse(new String[] { "tool" }, 1);
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testInvalidArguments() throws CmdLineException {
+        mDispatcher.parse(new String[] { "compact" });
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testDuplicateCommand() throws CmdLineException {
+        CommandDispatcher.builder()
+                .addCommand("ingest", ParserSchema.builder().build())
+                .addCommand("ingest", ParserSchema.builder().build());
+    }
+
+    @Test
+    public void testFailedFactoryIsRetried() throws CmdLineException {
+        final AtomicInteger attempts = new AtomicInteger();
+        final CommandDispatcher dispatcher = CommandDispatcher.builder()
+                .addCommand("broken", () -> {
+                    attempts.incrementAndGet();
+                    return ParserSchema.builder().addPositional("input", 2).build();
+                })
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                dispatcher.parse(new String[] { "broken" });
+                fail("invalid schemas should fail");
+            } catch (PositionalArgumentException ex) {
+                // expected
+            }
+        }
+        assertEquals(attempts.get(), 2);
+    }
+
+    @Test
+    public void testNullSchema() throws CmdLineException {
+        final CommandDispatcher dispatcher = CommandDispatcher.builder()
+                .addCommand("broken", () -> null)
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                dispatcher.parse(new String[] { "broken" });
+                fail("CmdLineException not thrown");
+            } catch (CmdLineException ex) {
+                assertEquals(ex.getMessage(), "the schema factory of command broken returned null");
+            }
+        }
+    }
+}
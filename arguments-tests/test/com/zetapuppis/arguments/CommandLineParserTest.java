@@ -2,6 +2,8 @@ package com.zetapuppis.arguments;
 
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.junit.Assert.*;
 
 public class CommandLineParserTest {
@@ -235,4 +237,18 @@ public class CommandLineParserTest {
             fail("Failed parsing valid argument sequence");
         }
     }
+
+    @Test
+    public void testArgumentsAreCopied() throws CmdLineException {
+        final String[] args = new String[] { "run", "a.txt" };
+        final CommandLineParser parser = CommandLineParser.from(args)
+                .addPositional("command", 1)
+                .addRest("files");
+        args[0] = "changed";
+        args[1] = "changed.txt";
+
+        final ParsedArguments parsed = parser.parse();
+        assertEquals(parsed.getString("command"), "run");
+        assertEquals(parsed.getRest(), Collections.singletonList("a.txt"));
+    }
 }
@@ -0,0 +1,144 @@
+package com.zetapuppis.arguments;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FallbackTest {
+    private Map<String, String> mEnvironment;
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mEnvironment = new HashMap<String, String>();
+        mFile = File.createTempFile("arguments", ".properties");
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    private void write(final String content) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(mFile), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private ParserSchema.Builder builder() throws CmdLineException {
+        return ParserSchema.builder()
+                .addSwitch("host", true, true)
+                .addSwitch("port", true, false)
+                .addSwitch("dry-run", false, false)
+                .addSwitch("user", true, false)
+                .withEnvironmentMap(mEnvironment);
+    }
+
+    @Test
+    public void testPrecedence() throws CmdLineException, IOException {
+        write("host=properties\nport=1\nuser=properties\n");
+        mEnvironment.put("TOOL_HOST", "environment");
+        mEnvironment.put("TOOL_PORT", "2");
+
+        final ParserSchema schema = builder()
+                .withEnvironmentPrefix("TOOL_")
+                .withProperties(mFile)
+                .build();
+        final ParsedArguments parsed = schema.parse(new String[] { "--port", "3" });
+
+        assertEquals(parsed.getString("host"), "environment");
+        assertEquals(parsed.getInt("port"), 3);
+        assertEquals(parsed.getString("user"), "properties");
+        assertFalse(parsed.has("dry-run"));
+    }
+
+    @Test
+    public void testResolvedAtBuild() throws CmdLineException, IOException {
+        write("host=before\n");
+        final ParserSchema schema = builder().withProperties(mFile).build();
+        write("host=after\n");
+        mEnvironment.put("HOST", "after");
+
+        assertEquals(schema.parse(new String[0]).getString("host"), "before");
+    }
+
+    @Test
+    public void testExplicitVariable() throws CmdLineException {
+        mEnvironment.put("SERVER", "explicit");
+        mEnvironment.put("TOOL_HOST", "prefixed");
+
+        final ParsedArguments parsed = builder()
+                .withEnvironmentPrefix("TOOL_")
+                .withEnvironment("host", "SERVER")
+                .build()
+                .parse(new String[0]);
+        assertEquals(parsed.getString("host"), "explicit");
+    }
+
+    @Test
+    public void testFlags() throws CmdLineException {
+        mEnvironment.put("HOST", "host");
+        mEnvironment.put("DRY_RUN", "false");
+        final ParserSchema.Builder builder = builder().withEnvironmentPrefix("");
+
+        assertFalse(builder.build().parse(new String[0]).has("dry-run"));
+
+        mEnvironment.put("DRY_RUN", "1");
+        assertTrue(builder.build().parse(new String[0]).has("dry-run"));
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testRequiredWithoutFallback() throws CmdLineException {
+        builder().withEnvironmentPrefix("TOOL_").build().parse(new String[0]);
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testUnknownSwitch() throws CmdLineException {
+        builder().withEnvironment("missing", "MISSING");
+    }
+
+    @Test(expected = ArgumentFileException.class)
+    public void testMissingPropertiesFile() throws CmdLineException {
+        mFile.delete();
+        builder().withProperties(mFile);
+    }
+
+    @Test
+    public void testParseInto() throws CmdLineException {
+        mEnvironment.put("HOST", "environment");
+        final ParserSchema schema = builder().withEnvironmentPrefix("").build();
+        final ParsedArguments parsed = schema.newArguments();
+
+        schema.parseInto(new String[] { "--host", "command-line" }, 0, parsed);
+        assertEquals(parsed.getString("host"), "command-line");
+        schema.parseInto(new String[0], 0, parsed);
+        assertEquals(parsed.getString("host"), "environment");
+    }
+
+    @Test
+    public void testLazy() throws CmdLineException {
+        mEnvironment.put("HOST", "environment");
+        mEnvironment.put("USER", "environment");
+        final ParserSchema schema = builder().withEnvironmentPrefix("").build();
+
+        final LazyArguments parsed = schema.parseLazily(new String[] { "--port", "1", "--user", "command-line" });
+        assertEquals(parsed.getString("user"), "command-line");
+        assertEquals(parsed.getString("host"), "environment");
+        parsed.validate();
+
+        assertEquals(schema.parseLazily(new String[0]).getString("host"), "environment");
+    }
+}
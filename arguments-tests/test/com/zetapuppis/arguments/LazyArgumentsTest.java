@@ -0,0 +1,132 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LazyArgumentsTest {
+    private static ParserSchema buildSchema() throws CmdLineException {
+        return ParserSchema.builder()
+                .addPositional("command", 1)
+                .addSwitch("first", true, false)
+                .addSwitch("second", true, true)
+                .addSwitch("flag", false, false)
+                .addRepeatableSwitch("define", "D", false)
+                .build();
+    }
+
+    @Test
+    public void testParse() throws CmdLineException {
+        final LazyArguments parsed = buildSchema().parseLazily(new String[] {
+                "run", "--first", "1", "-D", "a", "--second", "2", "-D", "b", "--flag"
+        });
+
+        assertEquals(parsed.getString("command"), "run");
+        assertEquals(parsed.getInt("first"), 1);
+        assertEquals(parsed.getString("second"), "2");
+        assertTrue(parsed.has("flag"));
+        assertEquals(parsed.getStrings("define"), Arrays.asList("a", "b"));
+        assertFalse(parsed.has("missing"));
+        parsed.validate();
+    }
+
+    @Test
+    public void testOnlyScansAsNeeded() throws CmdLineException {
+        final LazyArguments parsed = buildSchema().parseLazily(new String[] {
+                "run", "--first", "1", "--unknown", "--second", "2"
+        });
+
+        // positional keywords don't need the switches
+        assertEquals(parsed.getString("command"), "run");
+
+        // the unknown switch comes after the one we're looking for
+        assertEquals(parsed.getString("first"), "1");
+
+        // and stops the scan when it's reached
+        assertFalse(parsed.has("second"));
+        try {
+            parsed.validate();
+            fail("unknown switches should be reported");
+        } catch (SwitchArgumentException ex) {
+            assertEquals(ex.getMessage(), "--unknown is an unknown argument");
+        }
+    }
+
+    @Test
+    public void testLastValueWins() throws CmdLineException {
+        final ParserSchema schema = buildSchema();
+        final String[] args = new String[] { "run", "--second", "1", "--first", "a", "--second", "2" };
+        final LazyArguments parsed = schema.parseLazily(args);
+
+        assertEquals(parsed.getString("second"), "2");
+        assertEquals(parsed.getString("second"), schema.parse(args).getString("second"));
+        parsed.validate();
+        assertEquals(parsed.getString("second"), "2");
+    }
+
+    @Test
+    public void testCount() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addSwitch("verbose", "v", false, false)
+                .addSwitch("brief", "b", false, false)
+                .build();
+        final String[][] commandLines = new String[][] {
+                { "-vvv" }, { "-v", "-v", "-v" }, { "-v", "-b", "-vv" }
+        };
+
+        for (String[] args : commandLines) {
+            final ParsedArguments eager = schema.parse(args);
+            assertEquals(schema.parseLazily(args).getCount("verbose"), eager.getCount("verbose"));
+            assertEquals(schema.parseLazily(args).getCount("verbose"), 3);
+
+            // the first occurrence is already known before counting
+            final LazyArguments lazy = schema.parseLazily(args);
+            assertTrue(lazy.has("verbose"));
+            assertEquals(lazy.getCount("verbose"), 3);
+        }
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testValidate_missingRequired() throws CmdLineException {
+        final LazyArguments parsed = buildSchema().parseLazily(new String[] { "run", "--first", "1" });
+        assertEquals(parsed.getString("first"), "1");
+        parsed.validate();
+    }
+
+    @Test(expected = PositionalArgumentException.class)
+    public void testValidate_missingPositional() throws CmdLineException {
+        buildSchema().parseLazily(new String[0]).validate();
+    }
+
+    @Test
+    public void testOffset() throws CmdLineException {
+        final LazyArguments parsed = buildSchema().parseLazily(new String[] {
+                "tool", "run", "--second", "value"
+        }, 1);
+
+        assertEquals(parsed.getString("command"), "run");
+        assertEquals(parsed.getString("second"), "value");
+        assertEquals(parsed.getString("first", "default"), "default");
+    }
+
+    @Test
+    public void testKeys() throws CmdLineException {
+        final ParserSchema schema = buildSchema();
+        final LazyArguments parsed = schema.parseLazily(new String[] { "run", "--second", "value" });
+
+        assertTrue(parsed.has(schema.stringKey("second")));
+        assertEquals(parsed.get(schema.stringKey("second")), "value");
+    }
+
+    @Test
+    public void testSnapshot() throws CmdLineException {
+        final ParsedArguments snapshot = buildSchema().parseLazily(new String[] {
+                "run", "--second", "value", "--flag"
+        }).snapshot();
+
+        assertTrue(snapshot.has("flag"));
+        assertEquals(snapshot.getString("second"), "value");
+    }
+}
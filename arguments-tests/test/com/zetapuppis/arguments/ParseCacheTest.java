@@ -0,0 +1,159 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParseCacheTest {
+    private ParserSchema mSchema;
+    private ParseCache mCache;
+
+    @Before
+    public void setUp() throws CmdLineException {
+        mSchema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .addSwitch("queue", true, false)
+                .addSwitch("verbose", "v", false, false)
+                .withParseCache(1)
+                .build();
+        mCache = mSchema.getParseCache();
+    }
+
+    @Test
+    public void testDisabledByDefault() throws CmdLineException {
+        assertNull(ParserSchema.builder().build().getParseCache());
+        assertNull(ParserSchema.builder().withParseCache(0).build().getParseCache());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        ParserSchema.builder().withParseCache(-1);
+    }
+
+    @Test
+    public void testHit() throws CmdLineException {
+        final ParsedArguments first = mSchema.parse(new String[] { "run", "--queue", "default", "-v" });
+        final ParsedArguments second = mSchema.parse(new String[] { "run", "--queue", "default", "-v" });
+
+        assertSame(first, second);
+        assertEquals(first.getString("queue"), "default");
+        assertTrue(first.has("verbose"));
+        assertEquals(mCache.getHitCount(), 1);
+        assertEquals(mCache.getMissCount(), 1);
+        assertEquals(mCache.getHitRate(), 0.5, 0);
+        assertEquals(mCache.size(), 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws CmdLineException {
+        mSchema.parse(new String[] { "run" }).set("queue", "other");
+    }
+
+    @Test
+    public void testArgumentsAreCopied() throws CmdLineException {
+        final String[] args = new String[] { "run", "--queue", "default" };
+        final ParsedArguments first = mSchema.parse(args);
+        args[2] = "other";
+
+        assertNotSame(first, mSchema.parse(args));
+        assertEquals(mSchema.parse(new String[] { "run", "--queue", "other" }).getString("queue"), "other");
+    }
+
+    @Test
+    public void testOffset() throws CmdLineException {
+        final ParsedArguments first = mSchema.parse(new String[] { "tool", "run", "-v" }, 1);
+        assertSame(first, mSchema.parse(new String[] { "run", "-v" }));
+        assertSame(first, mSchema.tryParse(new String[] { "other", "tool", "run", "-v" }, 2).getArguments());
+    }
+
+    @Test
+    public void testEviction() throws CmdLineException {
+        final ParsedArguments first = mSchema.parse(new String[] { "first" });
+        mSchema.parse(new String[] { "second" });
+
+        assertEquals(mCache.getEvictionCount(), 1);
+        assertEquals(mCache.size(), 1);
+        assertNotSame(first, mSchema.parse(new String[] { "first" }));
+    }
+
+    @Test
+    public void testLeastRecentlyUsed() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .withParseCache(2)
+                .build();
+        final ParsedArguments first = schema.parse(new String[] { "first" });
+        schema.parse(new String[] { "second" });
+        schema.parse(new String[] { "first" });
+        schema.parse(new String[] { "third" });
+
+        assertSame(first, schema.parse(new String[] { "first" }));
+        assertEquals(schema.getParseCache().getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testFailuresNotCached() {
+        for (int i = 0; i < 2; i++) {
+            final ParseResult result = mSchema.tryParse(new String[] { "run", "--unknown" });
+            assertFalse(result.isSuccess());
+        }
+        assertEquals(mCache.size(), 0);
+        assertEquals(mCache.getMissCount(), 2);
+    }
+
+    @Test
+    public void testArgumentFilesNotCached() throws Exception {
+        final File file = File.createTempFile("arguments", ".args");
+        file.deleteOnExit();
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .addSwitch("queue", true, false)
+                .expandArgumentFiles()
+                .withParseCache(16)
+                .build();
+
+        Files.write(file.toPath(), "--queue first".getBytes("UTF-8"));
+        assertEquals(schema.parse(new String[] { "run", "@" + file.getPath() }).getString("queue"), "first");
+        Files.write(file.toPath(), "--queue second".getBytes("UTF-8"));
+        assertEquals(schema.parse(new String[] { "run", "@" + file.getPath() }).getString("queue"), "second");
+        assertEquals(schema.getParseCache().size(), 0);
+    }
+
+    @Test
+    public void testClear() throws CmdLineException {
+        mSchema.parse(new String[] { "run" });
+        mSchema.parse(new String[] { "run" });
+        mCache.clear();
+
+        assertEquals(mCache.size(), 0);
+        assertEquals(mCache.getHitCount(), 0);
+        assertEquals(mCache.getMissCount(), 0);
+    }
+
+    @Test
+    public void testConcurrent() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .addSwitch("queue", true, false)
+                .withParseCache(64)
+                .build();
+        final List<String[]> commandLines = new ArrayList<String[]>();
+        for (int i = 0; i < 1000; i++) {
+            commandLines.add(new String[] { "run", "--queue", "queue-" + (i % 10) });
+        }
+
+        for (ParseResult result : schema.parseAll(commandLines)) {
+            assertTrue(result.getArguments().getString("queue").startsWith("queue-"));
+        }
+        final ParseCache cache = schema.getParseCache();
+        assertEquals(cache.getHitCount() + cache.getMissCount(), 1000);
+        assertTrue(cache.getHitCount() > 0);
+        assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,143 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ParseListenerTest {
+    private ParseMetrics mMetrics;
+    private ParserSchema mSchema;
+
+    @Before
+    public void setUp() throws CmdLineException {
+        mMetrics = new ParseMetrics();
+        mSchema = ParserSchema.builder()
+                .addPositional("input", 1)
+                .addSwitch("verbose", "v", false, false)
+                .addSwitch("threads", true, false)
+                .addSwitch("unused", true, false)
+                .withListener(mMetrics)
+                .build();
+    }
+
+    @Test
+    public void testParse() throws CmdLineException {
+        mSchema.parse(new String[] { "in.txt", "-v", "--threads", "4" });
+        mSchema.parse(new String[] { "in.txt" });
+
+        assertEquals(mMetrics.getParseCount(), 2);
+        assertEquals(mMetrics.getFailureCount(), 0);
+        assertEquals(mMetrics.getTokenCount(), 5);
+        assertTrue(mMetrics.getTotalNanos() >= mMetrics.getMaxNanos());
+    }
+
+    @Test
+    public void testFailures() throws CmdLineException {
+        try {
+            mSchema.parse(new String[] { "in.txt", "--unknown" });
+            fail("SwitchArgumentException not thrown");
+        } catch (SwitchArgumentException ex) {
+            // expected
+        }
+        final ParseResult result = mSchema.tryParse(new String[] { "in.txt", "--unknown", "--other" });
+
+        assertFalse(result.isSuccess());
+        assertEquals(mMetrics.getParseCount(), 2);
+        assertEquals(mMetrics.getFailureCount(), 2);
+        assertEquals(mMetrics.getUnknownSwitchCount(), 3);
+    }
+
+    @Test
+    public void testAccessCounts() throws CmdLineException {
+        for (int i = 0; i < 3; i++) {
+            final ParsedArguments parsed = mSchema.parse(new String[] { "in.txt", "--threads", "4" });
+            parsed.getInt("threads");
+            parsed.getInt("threads", 1);
+            parsed.has("verbose");
+        }
+
+        final Map<String, Long> counts = mMetrics.getAccessCounts();
+        assertEquals(counts.get("threads"), Long.valueOf(3));
+        assertEquals(counts.get("verbose"), Long.valueOf(3));
+        assertFalse(counts.containsKey("input"));
+        assertFalse(counts.containsKey("unused"));
+    }
+
+    @Test
+    public void testParseInto() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.newArguments();
+        mSchema.parseInto(new String[] { "in.txt", "--threads", "4" }, 0, parsed);
+        parsed.get(mSchema.intKey("threads"));
+        mSchema.parseInto(new String[] { "in.txt", "--threads", "4" }, 0, parsed);
+        parsed.get(mSchema.intKey("threads"));
+
+        assertEquals(mMetrics.getParseCount(), 2);
+        assertEquals(mMetrics.getAccessCounts().get("threads"), Long.valueOf(2));
+    }
+
+    @Test
+    public void testSnapshotNotReported() throws CmdLineException {
+        final ParsedArguments snapshot = mSchema.parse(new String[] { "in.txt", "--threads", "4" }).snapshot();
+        snapshot.getInt("threads");
+        assertTrue(mMetrics.getAccessCounts().isEmpty());
+    }
+
+    @Test
+    public void testLazy() throws CmdLineException {
+        final LazyArguments parsed = mSchema.parseLazily(new String[] { "in.txt", "--unknown" });
+        assertFalse(parsed.has("threads"));
+
+        assertEquals(mMetrics.getParseCount(), 0);
+        assertEquals(mMetrics.getUnknownSwitchCount(), 1);
+        assertEquals(mMetrics.getAccessCounts().get("threads"), Long.valueOf(1));
+    }
+
+    @Test
+    public void testCommandLineParser() throws CmdLineException {
+        final ParsedArguments parsed = CommandLineParser.from(new String[] { "--name", "value" })
+                .addSwitch("name", true, true)
+                .withListener(mMetrics)
+                .parse();
+        parsed.getString("name");
+
+        assertEquals(mMetrics.getParseCount(), 1);
+        assertEquals(mMetrics.getTokenCount(), 2);
+        assertEquals(mMetrics.getAccessCounts().get("name"), Long.valueOf(1));
+    }
+
+    @Test
+    public void testSwitchParser() throws CmdLineException {
+        final List<String> unknown = new ArrayList<String>();
+        final SwitchParser parser = new SwitchParser()
+                .addSwitch(new SwitchArgument("name", true, false))
+                .withListener(new ParseListener() {
+                    @Override
+                    public void onUnknownSwitch(final String token) {
+                        unknown.add(token);
+                    }
+                });
+
+        try {
+            parser.parse(new String[] { "--other" });
+            fail("SwitchArgumentException not thrown");
+        } catch (SwitchArgumentException ex) {
+            assertEquals(unknown.size(), 1);
+            assertEquals(unknown.get(0), "--other");
+        }
+    }
+
+    @Test
+    public void testReset() throws CmdLineException {
+        mSchema.parse(new String[] { "in.txt" }).has("verbose");
+        mMetrics.reset();
+
+        assertEquals(mMetrics.getParseCount(), 0);
+        assertEquals(mMetrics.getMaxNanos(), 0);
+        assertTrue(mMetrics.getAccessCounts().isEmpty());
+    }
+}
@@ -4,6 +4,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -52,6 +55,19 @@ public class ParsedArgumentsTest {
         assertTrue(values.contains("value5"));
     }
 
+    @Test
+    public void testReset() throws ArgumentTypeException {
+        mParsedArguments.set("item1", "1");
+        assertEquals(mParsedArguments.getInt("item1"), 1);
+
+        mParsedArguments.reset();
+        assertFalse(mParsedArguments.has("item1"));
+        assertFalse(mParsedArguments.iterator().hasNext());
+
+        mParsedArguments.set("item1", "2");
+        assertEquals(mParsedArguments.getInt("item1"), 2);
+    }
+
     @Test
     public void testGetString() throws ArgumentTypeException {
         mParsedArguments.set("string", "value");
@@ -157,4 +173,166 @@ public class ParsedArgumentsTest {
         assertEquals(mParsedArguments.getFile("file", new File("/path/to/file")),
                 new File("/path/to/file"));
     }
+
+    @Test
+    public void testConversionsAreMemoized() throws ArgumentTypeException {
+        mParsedArguments.set("file", "/path/to/file");
+        assertSame(mParsedArguments.getFile("file"), mParsedArguments.getFile("file"));
+
+        // setting a new value discards the converted one
+        mParsedArguments.set("file", "/path/to/other");
+        assertEquals(mParsedArguments.getFile("file"), new File("/path/to/other"));
+    }
+
+    @Test
+    public void testConversionsAreMemoized_schema() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addSwitch("file", true, true)
+                .build();
+        final ParsedArguments parsed = schema.parse(new String[] { "--file", "/path/to/file" });
+        final ArgumentKey<File> key = schema.fileKey("file");
+
+        assertSame(parsed.getFile("file"), parsed.getFile("file"));
+        assertSame(parsed.get(key), parsed.getFile("file"));
+        assertEquals(parsed.getString("file"), "/path/to/file");
+    }
+
+    @Test
+    public void testExistingFileIsCheckedOnce() throws IOException {
+        final File file = File.createTempFile("arguments", ".tmp");
+        mParsedArguments.set("file", file.getPath());
+
+        try {
+            assertEquals(mParsedArguments.getExistingFile("file"), file);
+            assertTrue(file.delete());
+            assertEquals(mParsedArguments.getExistingFile("file"), file);
+        } catch (ArgumentTypeException e) {
+            fail("file was checked twice");
+        } finally {
+            file.delete();
+        }
+
+        mParsedArguments.setRevalidateFiles(true);
+        try {
+            mParsedArguments.getExistingFile("file");
+            fail("file was not checked again");
+        } catch (ArgumentTypeException e) {
+            // everything ok, the file was deleted
+        }
+    }
+
+    @Test
+    public void testGetStrings_singleValue() {
+        mParsedArguments.set("single", "value");
+        assertEquals(mParsedArguments.getStrings("single"), Collections.singletonList("value"));
+        assertTrue(mParsedArguments.getStrings("missing").isEmpty());
+    }
+
+    @Test
+    public void testRepeatableSwitches() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addRepeatableSwitch("include", "I", false)
+                .addRepeatableSwitch("id", "", false)
+                .addSwitch("single", true, false)
+                .build();
+
+        final String[] args = new String[2001 * 2 + 6];
+        int i = 0;
+        args[i++] = "--include";
+        args[i++] = "a";
+        args[i++] = "-I";
+        args[i++] = "b";
+        args[i++] = "--single";
+        args[i++] = "first";
+        for (int id = 0; id <= 2000; id++) {
+            args[i++] = "--id";
+            args[i++] = String.valueOf(id);
+        }
+        final ParsedArguments parsed = schema.parse(args);
+
+        assertEquals(parsed.getStrings("include"), Arrays.asList("a", "b"));
+        assertEquals(parsed.getString("include"), "b");
+        assertEquals(parsed.getStrings("single"), Collections.singletonList("first"));
+
+        final int[] ids = parsed.getInts("id");
+        final long[] longIds = parsed.getLongs("id");
+        assertEquals(ids.length, 2001);
+        assertEquals(longIds.length, 2001);
+        for (int id = 0; id <= 2000; id++) {
+            assertEquals(ids[id], id);
+            assertEquals(longIds[id], id);
+        }
+        assertEquals(parsed.getInts("missing").length, 0);
+    }
+
+    @Test(expected = ArgumentTypeException.class)
+    public void testGetInts_invalid() throws CmdLineException {
+        ParserSchema.builder()
+                .addRepeatableSwitch("id", "", false)
+                .build()
+                .parse(new String[] { "--id", "1", "--id", "two" })
+                .getInts("id");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetStrings_readOnly() throws CmdLineException {
+        ParserSchema.builder()
+                .addRepeatableSwitch("id", "", false)
+                .build()
+                .parse(new String[] { "--id", "1", "--id", "2" })
+                .getStrings("id")
+                .add("3");
+    }
+
+    @Test
+    public void testSnapshot() throws ArgumentTypeException {
+        mParsedArguments.set("item1", "1");
+        mParsedArguments.set("item2", "value2");
+        assertEquals(mParsedArguments.getInt("item1"), 1);
+
+        final ParsedArguments snapshot = mParsedArguments.snapshot();
+        mParsedArguments.set("item1", "2");
+        mParsedArguments.set("item3", "value3");
+
+        assertEquals(snapshot.getInt("item1"), 1);
+        assertEquals(snapshot.getString("item2"), "value2");
+        assertFalse(snapshot.has("item3"));
+        assertSame(snapshot.snapshot(), snapshot);
+
+        final Set<String> keys = new HashSet<String>();
+        for (Map.Entry<String, String> item : snapshot) {
+            keys.add(item.getKey());
+        }
+        assertEquals(keys, new HashSet<String>(Arrays.asList("item1", "item2")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshot_set() {
+        mParsedArguments.snapshot().set("item1", "value1");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshot_reset() {
+        mParsedArguments.snapshot().reset();
+    }
+
+    @Test
+    public void testSnapshot_schema() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("input", 1)
+                .addRepeatableSwitch("id", "", false)
+                .build();
+        final ArgumentKey<String> input = schema.stringKey("input");
+        final ParsedArguments parsed = schema.newArguments();
+
+        schema.parseInto(new String[] { "first", "--id", "1", "--id", "2" }, 0, parsed);
+        final ParsedArguments snapshot = parsed.snapshot();
+        schema.parseInto(new String[] { "second", "--id", "3" }, 0, parsed);
+
+        assertEquals(snapshot.get(input), "first");
+        assertEquals(snapshot.getStrings("id"), Arrays.asList("1", "2"));
+        assertEquals(snapshot.getInts("id").length, 2);
+        assertEquals(parsed.get(input), "second");
+        assertEquals(parsed.getStrings("id"), Arrays.asList("3"));
+    }
 }
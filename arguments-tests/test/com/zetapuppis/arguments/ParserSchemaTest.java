@@ -0,0 +1,385 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ParserSchemaTest {
+    private static String[] ARGS_MIXED_CLASSIC = new String[] {
+            // keywords
+            "item1", "item2",
+
+            // switches
+            "--required", "required",
+            "--optional", "value",
+            "--boolean"
+    };
+
+    private static ParserSchema buildMixedSchema() throws CmdLineException {
+        return ParserSchema.builder()
+                .addPositional("keyword1", 1)
+                .addPositional("keyword2", 2)
+                .addSwitch("required", true, true)
+                .addSwitch("optional", "o", true, false)
+                .addSwitch("boolean", false, false)
+                .build();
+    }
+
+    @Test
+    public void testParseMixed() throws CmdLineException {
+        final ParsedArguments parsed = buildMixedSchema().parse(ARGS_MIXED_CLASSIC);
+
+        assertEquals(parsed.getString("keyword1"), "item1");
+        assertEquals(parsed.getString("keyword2"), "item2");
+        assertEquals(parsed.getString("required"), "required");
+        assertEquals(parsed.getString("optional"), "value");
+        assertTrue(parsed.has("boolean"));
+        assertFalse(parsed.has("invalid"));
+    }
+
+    @Test
+    public void testReuse() throws CmdLineException {
+        final ParserSchema schema = buildMixedSchema();
+
+        final ParsedArguments first = schema.parse(ARGS_MIXED_CLASSIC);
+        final ParsedArguments second = schema.parse(new String[] {
+                "other1", "other2", "--required", "other", "-o", "short"
+        });
+
+        assertEquals(first.getString("keyword1"), "item1");
+        assertTrue(first.has("boolean"));
+        assertEquals(second.getString("keyword1"), "other1");
+        assertEquals(second.getString("optional"), "short");
+        assertFalse(second.has("boolean"));
+    }
+
+    @Test(expected = PositionalArgumentException.class)
+    public void testNotEnoughKeywords() throws CmdLineException {
+        buildMixedSchema().parse(new String[] { "item1" });
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testMissingRequired() throws CmdLineException {
+        buildMixedSchema().parse(new String[] { "item1", "item2" });
+    }
+
+    @Test(expected = PositionalArgumentException.class)
+    public void testInvalidPositionsRejectedAtBuild() throws CmdLineException {
+        ParserSchema.builder()
+                .addPositional("keyword1", 1)
+                .addPositional("keyword3", 3)
+                .build();
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testDuplicateNames() throws CmdLineException {
+        ParserSchema.builder()
+                .addPositional("key", 1)
+                .addSwitch("key", true, true);
+    }
+
+    @Test
+    public void testBuilderChangesDontAffectSchema() throws CmdLineException {
+        final ParserSchema.Builder builder = ParserSchema.builder()
+                .addSwitch("first", false, false);
+        final ParserSchema schema = builder.build();
+        builder.addSwitch("second", false, true);
+
+        assertTrue(schema.parse(new String[] { "--first" }).has("first"));
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        final ParserSchema schema = buildMixedSchema();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 100; i++) {
+                final String value = "value" + i;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return schema.parse(new String[] {
+                                "item1", "item2", "--required", value
+                        }).getString("required");
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(results.get(i).get(), "value" + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentSnapshotReads() throws Exception {
+        final ParsedArguments snapshot = buildMixedSchema().parse(ARGS_MIXED_CLASSIC).snapshot();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return snapshot.getString("keyword1") + snapshot.getString("optional");
+                    }
+                }));
+            }
+
+            for (Future<String> result : results) {
+                assertEquals(result.get(), "item1value");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseWithOffset() throws CmdLineException {
+        final String[] args = new String[] {
+                "command", "item1", "item2", "--required", "value"
+        };
+        final ParsedArguments parsed = buildMixedSchema().parse(args, 1);
+
+        assertEquals(parsed.getString("keyword1"), "item1");
+        assertEquals(parsed.getString("keyword2"), "item2");
+        assertEquals(parsed.getString("required"), "value");
+        assertEquals(args[0], "command");
+    }
+
+    @Test(expected = PositionalArgumentException.class)
+    public void testParseWithOffset_notEnoughKeywords() throws CmdLineException {
+        buildMixedSchema().parse(new String[] { "command", "item1" }, 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testParseWithOffset_outOfBounds() throws CmdLineException {
+        buildMixedSchema().parse(new String[] { "item1", "item2" }, 3);
+    }
+
+    @Test
+    public void testParseInto() throws CmdLineException {
+        final ParserSchema schema = buildMixedSchema();
+        final ParsedArguments parsed = schema.newArguments();
+
+        schema.parseInto(ARGS_MIXED_CLASSIC, 0, parsed);
+        assertEquals(parsed.getString("keyword1"), "item1");
+        assertEquals(parsed.getString("optional"), "value");
+        assertTrue(parsed.has("boolean"));
+
+        schema.parseInto(new String[] { "other1", "other2", "--required", "other" }, 0, parsed);
+        assertEquals(parsed.getString("keyword1"), "other1");
+        assertEquals(parsed.getString("required"), "other");
+        assertFalse(parsed.has("optional"));
+        assertFalse(parsed.has("boolean"));
+    }
+
+    @Test
+    public void testParseInto_afterFailure() throws CmdLineException {
+        final ParserSchema schema = buildMixedSchema();
+        final ParsedArguments parsed = schema.newArguments();
+
+        try {
+            schema.parseInto(new String[] { "item1", "item2", "--optional" }, 0, parsed);
+            fail("missing value should have failed");
+        } catch (SwitchArgumentException ex) {
+            assertEquals(ex.getMessage(), "missing value for --optional");
+        }
+
+        schema.parseInto(new String[] { "item1", "item2", "--required", "value" }, 0, parsed);
+        assertEquals(parsed.getString("required"), "value");
+        assertFalse(parsed.has("optional"));
+    }
+
+    @Test
+    public void testParseInto_repeatable() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addRepeatableSwitch("define", "D", false)
+                .build();
+        final ParsedArguments parsed = schema.newArguments();
+
+        schema.parseInto(new String[] { "-D", "a", "-D", "b", "-D", "c" }, 0, parsed);
+        assertEquals(parsed.getStrings("define"), Arrays.asList("a", "b", "c"));
+
+        schema.parseInto(new String[] { "-D", "d" }, 0, parsed);
+        assertEquals(parsed.getStrings("define"), Arrays.asList("d"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInto_otherSchema() throws CmdLineException {
+        buildMixedSchema().parseInto(ARGS_MIXED_CLASSIC, 0, buildMixedSchema().newArguments());
+    }
+
+    private static List<String[]> buildBatch(final int size) {
+        final List<String[]> lines = new ArrayList<String[]>();
+        for (int i = 0; i < size; i++) {
+            if (i % 10 == 9) {
+                // missing the required switch
+                lines.add(new String[] { "item1", "item2" });
+            } else {
+                lines.add(new String[] { "item1", "item2", "--required", "value" + i });
+            }
+        }
+        return lines;
+    }
+
+    private static void checkBatch(final List<ParseResult> results, final int size) throws CmdLineException {
+        assertEquals(results.size(), size);
+        for (int i = 0; i < size; i++) {
+            final ParseResult result = results.get(i);
+            if (i % 10 == 9) {
+                assertFalse(result.isSuccess());
+                assertTrue(result.getError() instanceof SwitchArgumentException);
+                assertEquals(result.getError().getMessage(), "required was a required argument");
+            } else {
+                assertTrue(result.isSuccess());
+                assertNull(result.getError());
+                assertEquals(result.getArguments().getString("required"), "value" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testParseAll() throws CmdLineException {
+        checkBatch(buildMixedSchema().parseAll(buildBatch(1000)), 1000);
+    }
+
+    @Test
+    public void testParseAll_empty() throws CmdLineException {
+        assertTrue(buildMixedSchema().parseAll(new ArrayList<String[]>()).isEmpty());
+    }
+
+    @Test
+    public void testParseAll_executor() throws CmdLineException {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            checkBatch(buildMixedSchema().parseAll(buildBatch(1000), executor), 1000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseAll_rejectingExecutor() throws CmdLineException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        checkBatch(buildMixedSchema().parseAll(buildBatch(100), executor), 100);
+    }
+
+    @Test
+    public void testParseAll_stream() throws CmdLineException {
+        final List<ParseResult> results = buildMixedSchema()
+                .parseAll(buildBatch(1000).stream())
+                .collect(Collectors.toList());
+        checkBatch(results, 1000);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParseResult_failedArguments() throws CmdLineException {
+        buildMixedSchema().parseAll(buildBatch(10)).get(9).getArguments();
+    }
+
+    @Test
+    public void testTryParse() throws CmdLineException {
+        final ParseResult result = buildMixedSchema().tryParse(ARGS_MIXED_CLASSIC);
+        assertTrue(result.isSuccess());
+        assertTrue(result.getErrors().isEmpty());
+        assertNull(result.getError());
+        assertEquals(result.getArguments().getString("optional"), "value");
+    }
+
+    @Test
+    public void testUnexpectedValue() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addSwitch("boolean", "b", false, false)
+                .build();
+        final ParseResult result = schema.tryParse(new String[] { "--boolean=yes" });
+
+        assertEquals(result.getErrors().size(), 1);
+        assertEquals(result.getErrors().get(0).getCode(), ParseError.Code.UNEXPECTED_VALUE);
+        assertEquals(result.getErrors().get(0).getArgument(), "--boolean=yes");
+        try {
+            schema.parse(new String[] { "--boolean=yes" });
+            fail("SwitchArgumentException not thrown");
+        } catch (SwitchArgumentException ex) {
+            assertEquals(ex.getMessage(), result.getErrors().get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void testTryParse_allErrors() throws CmdLineException {
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("keyword1", 1)
+                .addSwitch("required", true, true)
+                .addSwitch("other", true, true)
+                .addSwitch("boolean", false, false)
+                .addSwitch("optional", true, false)
+                .build();
+        final ParseResult result = schema.tryParse(new String[] {
+                "item1", "--unknown", "extra", "--boolean=yes", "--optional" });
+
+        assertFalse(result.isSuccess());
+        final List<ParseError> errors = result.getErrors();
+        assertEquals(errors.size(), 6);
+        assertEquals(errors.get(0).getCode(), ParseError.Code.UNKNOWN_SWITCH);
+        assertEquals(errors.get(0).getArgument(), "--unknown");
+        assertEquals(errors.get(1).getCode(), ParseError.Code.UNEXPECTED_ARGUMENT);
+        assertEquals(errors.get(1).getArgument(), "extra");
+        assertEquals(errors.get(2).getCode(), ParseError.Code.UNEXPECTED_VALUE);
+        assertEquals(errors.get(2).getArgument(), "--boolean=yes");
+        assertEquals(errors.get(2).getMessage(), "--boolean=yes gives a value to a switch that doesn't accept one");
+        assertEquals(errors.get(3).getCode(), ParseError.Code.MISSING_VALUE);
+        assertEquals(errors.get(3).getMessage(), "missing value for --optional");
+        assertEquals(errors.get(4).getCode(), ParseError.Code.MISSING_REQUIRED);
+        assertEquals(errors.get(5).getCode(), ParseError.Code.MISSING_REQUIRED);
+
+        // same exception as the one thrown by parse()
+        assertTrue(result.getError() instanceof SwitchArgumentException);
+        assertEquals(result.getError().getMessage(), "--unknown is an unknown argument");
+        assertSame(result.getError(), result.getError());
+    }
+
+    @Test
+    public void testTryParse_missingPositional() throws CmdLineException {
+        final ParseResult result = buildMixedSchema().tryParse(new String[] { "item1" });
+
+        assertEquals(result.getErrors().get(0).getCode(), ParseError.Code.MISSING_POSITIONAL);
+        assertEquals(result.getErrors().get(0).getArgument(), "keyword2");
+        assertTrue(result.getError() instanceof PositionalArgumentException);
+        try {
+            buildMixedSchema().parse(new String[] { "item1" });
+            fail("PositionalArgumentException not thrown");
+        } catch (PositionalArgumentException ex) {
+            assertEquals(ex.getMessage(), result.getError().getMessage());
+        }
+    }
+
+    @Test
+    public void testTryParse_argumentFile() throws CmdLineException {
+        final ParseResult result = ParserSchema.builder()
+                .addSwitch("optional", true, false)
+                .expandArgumentFiles()
+                .build()
+                .tryParse(new String[] { "@/does/not/exist", "--optional", "value" });
+
+        assertEquals(result.getErrors().size(), 1);
+        assertEquals(result.getErrors().get(0).getCode(), ParseError.Code.ARGUMENT_FILE);
+        assertEquals(result.getErrors().get(0).getArgument(), "@/does/not/exist");
+        assertTrue(result.getError() instanceof ArgumentFileException);
+    }
+}
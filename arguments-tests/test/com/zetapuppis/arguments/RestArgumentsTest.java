@@ -0,0 +1,229 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class RestArgumentsTest {
+    private ParserSchema mSchema;
+
+    @Before
+    public void setUp() throws CmdLineException {
+        mSchema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .addSwitch("threads", true, false)
+                .addSwitch("verbose", "v", false, false)
+                .addRest("files")
+                .build();
+    }
+
+    @Test
+    public void testRest() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.parse(new String[] {
+                "copy", "--threads", "4", "a.txt", "b.txt", "--verbose", "c.txt" });
+
+        assertEquals(parsed.getString("threads"), "4");
+        // switches after the first value are values as well
+        assertFalse(parsed.has("verbose"));
+        assertEquals(parsed.getRest(), Arrays.asList("a.txt", "b.txt", "--verbose", "c.txt"));
+        assertEquals(parsed.getStrings("files"), parsed.getRest());
+        assertEquals(parsed.getCount("files"), 4);
+        assertTrue(parsed.has("files"));
+    }
+
+    @Test
+    public void testGetters() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.parse(new String[] { "copy", "-v", "a.txt", "2" });
+
+        assertTrue(parsed.has("files"));
+        assertEquals(parsed.getString("files"), "2");
+        assertEquals(parsed.getString("files", "default"), "2");
+        assertEquals(parsed.getInt("files"), 2);
+
+        final Map<String, String> entries = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : parsed) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(entries.get("files"), "2");
+        assertEquals(entries.size(), 3);
+
+        for (ParsedArguments other : Arrays.asList(parsed.snapshot(), mSchema.parseLazily(
+                new String[] { "copy", "-v", "a.txt", "2" }))) {
+            assertEquals(other.getString("files"), "2");
+            assertTrue(other.iterator().hasNext());
+        }
+
+        final ParsedArguments empty = mSchema.parse(new String[] { "copy" });
+        assertFalse(empty.has("files"));
+        assertEquals(empty.getString("files", "default"), "default");
+        try {
+            empty.getString("files");
+            fail("ArgumentTypeException not thrown");
+        } catch (ArgumentTypeException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEmpty() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.parse(new String[] { "copy", "-v" });
+        assertTrue(parsed.getRest().isEmpty());
+        assertFalse(parsed.has("files"));
+        assertEquals(parsed.getCount("files"), 0);
+    }
+
+    @Test
+    public void testDoubleDash() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.parse(new String[] { "copy", "-v", "--", "-a.txt", "--threads" });
+        assertTrue(parsed.has("verbose"));
+        assertFalse(parsed.has("threads"));
+        assertEquals(parsed.getRest(), Arrays.asList("-a.txt", "--threads"));
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testUnknownSwitchBeforeRest() throws CmdLineException {
+        mSchema.parse(new String[] { "copy", "--unknown", "a.txt" });
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testWithoutRest() throws CmdLineException {
+        ParserSchema.builder().addSwitch("verbose", "v", false, false).build()
+                .parse(new String[] { "a.txt" });
+    }
+
+    @Test
+    public void testView() throws CmdLineException {
+        final String[] args = new String[] { "copy", "a.txt", "b.txt", "c.txt" };
+        final List<String> rest = mSchema.parse(args).getRest();
+
+        // not a copy
+        args[2] = "changed.txt";
+        assertEquals(rest.get(1), "changed.txt");
+        assertEquals(rest.subList(1, 3), Arrays.asList("changed.txt", "c.txt"));
+        assertArrayEquals(rest.toArray(), new Object[] { "a.txt", "changed.txt", "c.txt" });
+
+        try {
+            rest.set(0, "other.txt");
+            fail("UnsupportedOperationException not thrown");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+        try {
+            rest.get(3);
+            fail("IndexOutOfBoundsException not thrown");
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testParallelStream() throws CmdLineException {
+        final String[] args = new String[100001];
+        args[0] = "copy";
+        for (int i = 1; i < args.length; i++) {
+            args[i] = "file" + i;
+        }
+        final ParsedArguments parsed = mSchema.parse(args);
+        final List<String> rest = parsed.getRest();
+
+        final Spliterator<String> spliterator = rest.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(spliterator.trySplit().estimateSize(), 50000);
+
+        assertEquals(rest.parallelStream().filter(f -> f.endsWith("7")).count(), 10000);
+        assertEquals(rest.parallelStream().collect(Collectors.toList()),
+                IntStream.range(1, args.length).mapToObj(i -> "file" + i).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testOffsetAndReuse() throws CmdLineException {
+        final ParsedArguments parsed = mSchema.newArguments();
+        mSchema.parseInto(new String[] { "tool", "copy", "a.txt" }, 1, parsed);
+        assertEquals(parsed.getRest(), Collections.singletonList("a.txt"));
+        mSchema.parseInto(new String[] { "copy" }, 0, parsed);
+        assertTrue(parsed.getRest().isEmpty());
+    }
+
+    @Test
+    public void testSnapshot() throws CmdLineException {
+        final String[] args = new String[] { "copy", "a.txt" };
+        final ParsedArguments snapshot = mSchema.parse(args).snapshot();
+        args[1] = "changed.txt";
+        assertEquals(snapshot.getRest(), Collections.singletonList("a.txt"));
+        assertEquals(snapshot.getStrings("files"), Collections.singletonList("a.txt"));
+    }
+
+    @Test
+    public void testTryParse() {
+        final ParseResult result = mSchema.tryParse(new String[] { "copy", "--unknown", "a.txt", "--other" });
+        assertFalse(result.isSuccess());
+        assertEquals(result.getErrors().size(), 1);
+        assertEquals(result.getErrors().get(0).getArgument(), "--unknown");
+    }
+
+    @Test
+    public void testLazy() throws CmdLineException {
+        final LazyArguments parsed = mSchema.parseLazily(new String[] { "copy", "-v", "a.txt", "b.txt" });
+        assertTrue(parsed.has("verbose"));
+        assertEquals(parsed.getRest(), Arrays.asList("a.txt", "b.txt"));
+        assertFalse(parsed.has("threads"));
+        parsed.validate();
+    }
+
+    @Test
+    public void testArgumentFiles() throws Exception {
+        final File file = File.createTempFile("arguments", ".args");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "b.txt c.txt".getBytes("UTF-8"));
+        final ParserSchema schema = ParserSchema.builder()
+                .addSwitch("verbose", "v", false, false)
+                .addRest("files")
+                .expandArgumentFiles()
+                .build();
+
+        assertEquals(schema.parse(new String[] { "-v", "a.txt", "@" + file.getPath(), "d.txt" }).getRest(),
+                Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt"));
+        assertEquals(schema.parse(new String[] { "@" + file.getPath(), "d.txt" }).getRest(),
+                Arrays.asList("b.txt", "c.txt", "d.txt"));
+        assertEquals(schema.parse(new String[] { "-v", "a.txt", "b.txt" }).getRest(),
+                Arrays.asList("a.txt", "b.txt"));
+    }
+
+    @Test
+    public void testCommandLineParser() throws CmdLineException {
+        final ParsedArguments parsed = CommandLineParser.from(new String[] { "a.txt", "b.txt" })
+                .addRest("files")
+                .parse();
+        assertEquals(parsed.getRest(), Arrays.asList("a.txt", "b.txt"));
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testDuplicateName() throws CmdLineException {
+        ParserSchema.builder().addPositional("files", 1).addRest("files");
+    }
+
+    @Test(expected = PositionalArgumentException.class)
+    public void testTwoRests() throws CmdLineException {
+        ParserSchema.builder().addRest("files").addRest("others");
+    }
+
+    @Test
+    public void testTokenCount() throws CmdLineException {
+        final ParseMetrics metrics = new ParseMetrics();
+        ParserSchema.builder().addRest("files").withListener(metrics).build()
+                .parse(new String[] { "a.txt", "b.txt", "c.txt" });
+        assertEquals(metrics.getTokenCount(), 3);
+    }
+}
@@ -2,6 +2,8 @@ package com.zetapuppis.arguments;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class SwitchParsingTest {
@@ -264,4 +266,188 @@ public class SwitchParsingTest {
         assertTrue(parsed.getString("cmd1").equals("val1"));
         assertTrue(parsed.getString("cmd2").equals("val2"));
     }
+
+    @Test
+    public void testSwitchIndexIsReused() {
+        final SwitchParser parser = new SwitchParser()
+                .addSwitch(new SwitchArgument("cmd1", true, false));
+
+        final SwitchIndex index = parser.getSwitchIndex();
+        assertSame(index, parser.getSwitchIndex());
+        assertNotNull(index.lookup("--cmd1"));
+        assertNull(index.lookup("--cmd2"));
+    }
+
+    @Test
+    public void testSwitchIndexIsRebuiltAfterAdding() throws ArgumentTypeException, SwitchArgumentException {
+        final SwitchParser parser = new SwitchParser()
+                .addSwitch(new SwitchArgument("cmd1", true, false));
+        parser.parse(new String[] { "--cmd1", "val1" });
+
+        parser.addSwitch(new SwitchArgument("cmd2", "c", true, false));
+        final ParsedArguments parsed = parser.parse(new String[] { "--cmd1", "val1", "-c", "val2" });
+
+        assertEquals(parsed.getString("cmd1"), "val1");
+        assertEquals(parsed.getString("cmd2"), "val2");
+    }
+
+    @Test
+    public void testAttachedValues() throws ArgumentTypeException, SwitchArgumentException {
+        final ParsedArguments parsed = new SwitchParser()
+                .addSwitch(new SwitchArgument("cmd1", true, true))
+                .addSwitch(new SwitchArgument("cmd2", true, true))
+                .parse(new String[] { "--cmd1=val1", "--cmd2=" });
+
+        assertEquals(parsed.getString("cmd1"), "val1");
+        assertEquals(parsed.getString("cmd2"), "");
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testAttachedValueOnBooleanSwitch() throws SwitchArgumentException {
+        new SwitchParser()
+                .addSwitch(new SwitchArgument("boolean", false, false))
+                .parse(new String[] { "--boolean=true" });
+    }
+
+    @Test
+    public void testAbbreviations() throws ArgumentTypeException, SwitchArgumentException {
+        final SwitchParser parser = new SwitchParser()
+                .addSwitch(new SwitchArgument("verbose", false, false))
+                .addSwitch(new SwitchArgument("verb", true, false))
+                .addSwitch(new SwitchArgument("output", true, false))
+                .allowAbbreviations();
+
+        final ParsedArguments parsed = parser.parse(new String[] {
+                "--verbo", "--verb", "value", "--out=file"
+        });
+
+        assertTrue(parsed.has("verbose"));
+        assertEquals(parsed.getString("verb"), "value");
+        assertEquals(parsed.getString("output"), "file");
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testAmbiguousAbbreviation() throws SwitchArgumentException {
+        new SwitchParser()
+                .addSwitch(new SwitchArgument("verbose", false, false))
+                .addSwitch(new SwitchArgument("version", false, false))
+                .allowAbbreviations()
+                .parse(new String[] { "--ver" });
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testAbbreviationsDisabledByDefault() throws SwitchArgumentException {
+        new SwitchParser()
+                .addSwitch(new SwitchArgument("verbose", false, false))
+                .parse(new String[] { "--verb" });
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testShortSwitchesAreNotAbbreviated() throws SwitchArgumentException {
+        new SwitchParser()
+                .addSwitch(new SwitchArgument("verbose", "vv", false, false))
+                .allowAbbreviations()
+                .parse(new String[] { "-v" });
+    }
+
+    private static SwitchParser buildClusterParser() {
+        return new SwitchParser()
+                .addSwitch(new SwitchArgument("all", "a", false, false))
+                .addSwitch(new SwitchArgument("brief", "b", false, false))
+                .addSwitch(new SwitchArgument("verbose", "v", false, false))
+                .addSwitch(new SwitchArgument("jobs", "j", true, false))
+                .addSwitch(new SwitchArgument("define", "D", true, false, true))
+                .addSwitch(new SwitchArgument("all-brief", "ab", false, false));
+    }
+
+    @Test
+    public void testShortSwitchClusters() throws CmdLineException {
+        final ParsedArguments parsed = buildClusterParser().parse(new String[] { "-bv", "-j8" });
+
+        assertTrue(parsed.has("brief"));
+        assertTrue(parsed.has("verbose"));
+        assertFalse(parsed.has("all"));
+        assertEquals(parsed.getString("brief"), "");
+        assertEquals(parsed.getInt("jobs"), 8);
+    }
+
+    @Test
+    public void testShortSwitchClusters_exactNameFirst() throws CmdLineException {
+        final ParsedArguments parsed = buildClusterParser().parse(new String[] { "-ab" });
+
+        assertTrue(parsed.has("all-brief"));
+        assertFalse(parsed.has("all"));
+        assertFalse(parsed.has("brief"));
+    }
+
+    @Test
+    public void testShortSwitchClusters_valueLast() throws CmdLineException {
+        final ParsedArguments parsed = buildClusterParser().parse(new String[] { "-vj", "4", "-vD", "x=1", "-Dy=2" });
+
+        assertTrue(parsed.has("verbose"));
+        assertEquals(parsed.getInt("jobs"), 4);
+        assertEquals(parsed.getStrings("define"), Arrays.asList("x=1", "y=2"));
+    }
+
+    @Test
+    public void testShortSwitchClusters_missingValue() {
+        try {
+            buildClusterParser().parse(new String[] { "-bj" });
+            fail("SwitchArgumentException not thrown");
+        } catch (SwitchArgumentException ex) {
+            assertEquals(ex.getMessage(), "missing value for -bj");
+        }
+    }
+
+    @Test
+    public void testShortSwitchClusters_unknown() throws CmdLineException {
+        try {
+            buildClusterParser().parse(new String[] { "-bx" });
+            fail("SwitchArgumentException not thrown");
+        } catch (SwitchArgumentException ex) {
+            assertEquals(ex.getMessage(), "-bx is an unknown argument");
+        }
+    }
+
+    @Test
+    public void testFlagCounts() throws CmdLineException {
+        final ParsedArguments parsed = buildClusterParser().parse(new String[] {
+                "-vvv", "--verbose", "-b", "-D", "a", "-D", "b", "-j", "1", "-j", "2" });
+
+        assertEquals(parsed.getCount("verbose"), 4);
+        assertEquals(parsed.getCount("brief"), 1);
+        assertEquals(parsed.getCount("all"), 0);
+        assertEquals(parsed.getCount("define"), 2);
+        assertEquals(parsed.getCount("jobs"), 1);
+        assertEquals(parsed.getCount("invalid"), 0);
+
+        final ParsedArguments snapshot = parsed.snapshot();
+        assertEquals(snapshot.getCount("verbose"), 4);
+        assertEquals(snapshot.getCount("brief"), 1);
+        assertTrue(snapshot.has("brief"));
+
+        parsed.reset();
+        assertEquals(parsed.getCount("verbose"), 0);
+        assertFalse(parsed.has("verbose"));
+    }
+
+    @Test
+    public void testManyFlags() throws CmdLineException {
+        final SwitchParser parser = new SwitchParser();
+        final String[] args = new String[100];
+        for (int i = 0; i < 100; i++) {
+            parser.addSwitch(new SwitchArgument("flag" + i, false, false));
+            args[i] = "--flag" + (i * 7 % 100);
+        }
+        final ParsedArguments parsed = parser.parse(Arrays.copyOf(args, 50));
+
+        int present = 0;
+        for (int i = 0; i < 100; i++) {
+            if (parsed.has("flag" + i)) {
+                present++;
+            }
+        }
+        assertEquals(present, 50);
+        assertTrue(parsed.has("flag" + (49 * 7 % 100)));
+    }
 }
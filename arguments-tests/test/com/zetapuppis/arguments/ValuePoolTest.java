@@ -0,0 +1,113 @@
+package com.zetapuppis.arguments;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ValuePoolTest {
+    @Test
+    public void testIntern() {
+        final ValuePool pool = new ValuePool(16);
+        final String first = new String("value");
+        final String second = new String("value");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertEquals(pool.getHitCount(), 1);
+        assertEquals(pool.getMissCount(), 1);
+        assertEquals(pool.getHitRate(), 0.5, 0);
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals(new ValuePool(1).getCapacity(), 1);
+        assertEquals(new ValuePool(16).getCapacity(), 16);
+        assertEquals(new ValuePool(100).getCapacity(), 128);
+        assertEquals(new ValuePool(1 << 24).getCapacity(), 1 << 24);
+        assertEquals(new ValuePool((1 << 30) + 1).getCapacity(), 1 << 24);
+        assertEquals(new ValuePool(Integer.MAX_VALUE).getCapacity(), 1 << 24);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new ValuePool(0);
+    }
+
+    @Test
+    public void testBounded() {
+        final ValuePool pool = new ValuePool(1);
+        pool.intern("first");
+        final String second = new String("second");
+        pool.intern(second);
+
+        // the new value replaced the old one
+        assertSame(second, pool.intern(new String("second")));
+        assertEquals(pool.getMissCount(), 2);
+    }
+
+    @Test
+    public void testClear() {
+        final ValuePool pool = new ValuePool(16);
+        pool.intern("value");
+        pool.intern("value");
+        pool.clear();
+
+        assertEquals(pool.getHitCount(), 0);
+        assertEquals(pool.getMissCount(), 0);
+        assertEquals(pool.getHitRate(), 0, 0);
+        final String value = new String("value");
+        assertSame(value, pool.intern(value));
+    }
+
+    @Test
+    public void testSchema() throws CmdLineException {
+        final ValuePool pool = new ValuePool(64);
+        final ParserSchema schema = ParserSchema.builder()
+                .addPositional("command", 1)
+                .addSwitch("queue", true, false)
+                .addRepeatableSwitch("tag", "t", false)
+                .withValuePool(pool)
+                .build();
+
+        final ParsedArguments first = schema.parse(new String[] {
+                new String("run"), "--queue", new String("default"), "--tag=a" });
+        final ParsedArguments second = schema.parse(new String[] {
+                new String("run"), "--queue", new String("default"), "--tag=a" });
+
+        assertSame(first.getString("command"), second.getString("command"));
+        assertSame(first.getString("queue"), second.getString("queue"));
+        assertSame(first.getStrings("tag").get(0), second.getStrings("tag").get(0));
+        assertEquals(pool.getHitCount(), 3);
+
+        final ParsedArguments third = schema.tryParse(new String[] {
+                new String("run"), "--queue", new String("default") }).getArguments();
+        assertSame(first.getString("queue"), third.getString("queue"));
+        final LazyArguments lazy = schema.parseLazily(new String[] {
+                new String("run"), "--queue", new String("default") });
+        assertSame(first.getString("queue"), lazy.getString("queue"));
+    }
+
+    @Test
+    public void testConcurrent() throws CmdLineException {
+        final ValuePool pool = new ValuePool(1024);
+        final ParserSchema schema = ParserSchema.builder()
+                .addSwitch("queue", true, false)
+                .withValuePool(pool)
+                .build();
+        final List<String[]> commandLines = new ArrayList<String[]>();
+        for (int i = 0; i < 1000; i++) {
+            commandLines.add(new String[] { "--queue", "queue-" + (i % 10) });
+        }
+
+        final List<ParseResult> results = schema.parseAll(commandLines);
+        assertEquals(results.size(), 1000);
+        for (ParseResult result : results) {
+            assertTrue(result.getArguments().getString("queue").startsWith("queue-"));
+        }
+        assertEquals(pool.getHitCount() + pool.getMissCount(), 1000);
+        assertTrue(pool.getHitCount() > 0);
+    }
+}
@@ -0,0 +1,153 @@
+package com.zetapuppis.arguments.annotations;
+
+import com.zetapuppis.arguments.ArgumentBinder;
+import com.zetapuppis.arguments.CmdLineException;
+import com.zetapuppis.arguments.ParsedArguments;
+import com.zetapuppis.arguments.SwitchArgumentException;
+import com.zetapuppis.arguments.processor.ArgumentsProcessor;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class AnnotationProcessorTest {
+    @Test
+    public void testGeneratedParser() throws CmdLineException {
+        final Options options = OptionsParser.parse(new String[] {
+                "run", "data.txt",
+                "-v", "--threads", "4", "--separator", ",",
+                "-D", "a=1", "-D", "b=2", "--ids", "1", "--ids", "2", "--dry-run"
+        });
+
+        assertEquals(options.command, "run");
+        assertEquals(options.input, new File("data.txt"));
+        assertTrue(options.verbose);
+        assertEquals(options.threads, 4);
+        assertEquals(options.output, "default");
+        assertEquals(options.separator, Character.valueOf(','));
+        assertEquals(options.define, Arrays.asList("a=1", "b=2"));
+        assertArrayEquals(options.ids, new long[] { 1, 2 });
+        assertTrue(options.dryRun);
+    }
+
+    @Test
+    public void testMissingArgumentsKeepTheirValue() throws CmdLineException {
+        final Options options = new Options();
+        OptionsParser.parse(new String[] { "run", "data.txt", "--threads", "1", "--out", "result" }, options);
+
+        assertFalse(options.verbose);
+        assertEquals(options.output, "result");
+        assertNull(options.separator);
+        assertNull(options.define);
+        assertNull(options.ids);
+    }
+
+    @Test
+    public void testListsAreCopied() throws CmdLineException {
+        final ParsedArguments parsed = OptionsParser.schema().parse(new String[] {
+                "run", "data.txt", "--threads", "1", "-D", "a=1" });
+        final Options first = new Options();
+        final Options second = new Options();
+        OptionsParser.bind(parsed, first);
+        OptionsParser.bind(parsed, second);
+
+        assertNotSame(first.define, second.define);
+        first.define.add("b=2");
+        assertEquals(second.define, Collections.singletonList("a=1"));
+        assertEquals(parsed.getStrings("define"), Collections.singletonList("a=1"));
+    }
+
+    @Test(expected = SwitchArgumentException.class)
+    public void testRequiredSwitch() throws CmdLineException {
+        OptionsParser.parse(new String[] { "run", "data.txt" });
+    }
+
+    @Test
+    public void testNestedClass() throws CmdLineException {
+        assertEquals(Options_NestedParser.parse(new String[0]).level, 1);
+        assertEquals(Options_NestedParser.parse(new String[] { "--level", "3" }).level, 3);
+    }
+
+    @Test
+    public void testInheritedFields() throws CmdLineException {
+        final String[] args = new String[] {
+                "run", "data.txt", "-v", "--threads", "4", "-D", "a=1", "--dry-run", "--extra", "value" };
+        final Options.Extended generated = Options_ExtendedParser.parse(args);
+        final Options.Extended bound = ArgumentBinder.of(Options.Extended.class).parse(args);
+
+        for (Options options : Arrays.asList(generated, bound)) {
+            assertEquals(options.command, "run");
+            assertEquals(options.input, new File("data.txt"));
+            assertTrue(options.verbose);
+            assertEquals(options.threads, 4);
+            assertEquals(options.define, Collections.singletonList("a=1"));
+            assertTrue(options.dryRun);
+        }
+        assertEquals(generated.extra, "value");
+        assertEquals(bound.extra, "value");
+
+        assertEquals(Options_InheritingParser.parse(new String[] { "run", "data.txt", "--threads", "2" }).threads, 2);
+    }
+
+    @Test
+    public void testSchema() {
+        assertTrue(OptionsParser.schema() == OptionsParser.schema());
+    }
+
+    @Test
+    public void testCompilationErrors() {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final JavaFileObject source = new SimpleJavaFileObject(
+                URI.create("string:///Invalid.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return "import com.zetapuppis.arguments.annotations.*;\n"
+                        + "class Invalid {\n"
+                        + "    @Switch private int hidden;\n"
+                        + "    @Switch Object unsupported;\n"
+                        + "    @Positional(2) String second;\n"
+                        + "    @Positional(0) String zero;\n"
+                        + "}\n"
+                        + "class HidingBase {\n"
+                        + "    @Switch int level;\n"
+                        + "    @Switch Object unsupported;\n"
+                        + "}\n"
+                        + "class Hiding extends HidingBase {\n"
+                        + "    String level;\n"
+                        + "}\n"
+                        + "class Remote extends com.zetapuppis.arguments.annotations.Options {\n"
+                        + "}\n";
+            }
+        };
+
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-proc:only", "-classpath", System.getProperty("java.class.path")),
+                null, Collections.singletonList(source));
+        task.setProcessors(Collections.singletonList(new ArgumentsProcessor()));
+
+        assertFalse(task.call());
+        final StringBuilder messages = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            messages.append(diagnostic.getMessage(null)).append('\n');
+        }
+        assertTrue(messages.toString().contains("argument fields must not be private, static or final"));
+        assertTrue(messages.toString().contains("unsupported argument type java.lang.Object"));
+        assertTrue(messages.toString().contains("keyword second can't be at position 2"));
+        assertTrue(messages.toString().contains("keyword zero can't be at position 0"));
+        assertTrue(messages.toString().contains(
+                "level hides the argument field inherited from HidingBase"));
+        assertTrue(messages.toString().contains("inherited argument field command of "
+                + "com.zetapuppis.arguments.annotations.Options must be public to be set from"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.zetapuppis.arguments.annotations;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Annotated arguments used by {@link AnnotationProcessorTest}.
+ */
+public class Options {
+    @Positional(1)
+    String command;
+
+    @Positional(value = 2, name = "input-file")
+    File input;
+
+    @Switch(shortName = "v")
+    boolean verbose;
+
+    @Switch(required = true)
+    int threads;
+
+    @Switch(name = "out")
+    String output = "default";
+
+    @Switch
+    Character separator;
+
+    @Switch(shortName = "D")
+    List<String> define;
+
+    @Switch
+    long[] ids;
+
+    @Switch
+    boolean dryRun;
+
+    public static class Nested {
+        @Switch
+        int level = 1;
+    }
+
+    public static class Extended extends Options {
+        @Switch
+        String extra;
+    }
+
+    // no argument field of its own
+    public static class Inheriting extends Options {
+    }
+}
@@ -0,0 +1,385 @@
+package com.zetapuppis.arguments;
+
+import com.zetapuppis.arguments.annotations.Positional;
+import com.zetapuppis.arguments.annotations.Switch;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copies parsed arguments into the annotated fields of an object (see
+ * {@link Switch} and {@link Positional}), in a single pass.
+ * <p>
+ * The fields of a class are inspected only once: the binder returned by
+ * {@link #of(Class)} is cached and holds the schema declared by the fields,
+ * an {@link ArgumentKey} and a {@link MethodHandle} setter for each of them,
+ * so binding doesn't look up arguments by name nor use reflection. Unlike
+ * the typed getters of {@link ParsedArguments}, which fail at the first
+ * value that cannot be converted, all the conversion errors are collected
+ * and reported together by an {@link ArgumentBindingException}:
+ * <pre>
+ *   final ArgumentBinder&lt;Options&gt; binder = ArgumentBinder.of(Options.class);
+ *   Options options = binder.parse(args);
+ * </pre>
+ * Unlike the parsers generated by <code>arguments-processor</code>, a
+ * binder can also write private fields. Binders are immutable and can be
+ * shared between threads.
+ * @param <T> type of the objects the arguments are bound to
+ */
+public final class ArgumentBinder<T> {
+    private static final ClassValue<ArgumentBinder<?>> BINDERS = new ClassValue<ArgumentBinder<?>>() {
+        @Override
+        protected ArgumentBinder<?> computeValue(final Class<?> type) {
+            return new ArgumentBinder<Object>(type);
+        }
+    };
+
+    // setters are adapted to this type so that they can all be invoked exactly
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * How the value of a field is declared in the schema and read back.
+     */
+    private enum Kind {
+        FLAG, STRING, INT, CHAR, FILE, STRINGS, INTS, LONGS;
+
+        private boolean isSingleValue() {
+            return this == STRING || this == INT || this == CHAR || this == FILE;
+        }
+
+        private boolean isRepeatable() {
+            return this == STRINGS || this == INTS || this == LONGS;
+        }
+    }
+
+    private final Class<?> mType;
+    private final ParserSchema mSchema;
+    private final Binding[] mBindings;
+    // null if the type has no constructor without arguments
+    private final MethodHandle mConstructor;
+
+    private ArgumentBinder(final Class<?> type) {
+        mType = type;
+
+        final List<Field> fields = annotatedFields(type);
+        final ParserSchema.Builder builder = ParserSchema.builder();
+        final Kind[] kinds = new Kind[fields.size()];
+        final String[] names = new String[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            final Field field = fields.get(i);
+            kinds[i] = kindOf(field);
+            names[i] = declare(builder, field, kinds[i]);
+        }
+
+        try {
+            mSchema = builder.build();
+        } catch (PositionalArgumentException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+
+        mBindings = new Binding[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            mBindings[i] = new Binding(kinds[i], keyOf(mSchema, kinds[i], names[i]), setterOf(fields.get(i)));
+        }
+        mConstructor = constructorOf(type);
+    }
+
+    /**
+     * Returns the binder of the given class, creating it the first time the
+     * class is used.
+     * @param type a class with fields annotated with {@link Switch} or
+     *             {@link Positional}, in the class itself or in its superclasses
+     * @param <T> type of the objects the arguments are bound to
+     * @return the {@link ArgumentBinder} of the class
+     * @throws IllegalArgumentException if an annotated field is static, final or
+     *         of an unsupported type, or the fields don't declare a valid schema
+     *         (duplicate names, positions that are not contiguous)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ArgumentBinder<T> of(final Class<T> type) {
+        return (ArgumentBinder<T>) BINDERS.get(type);
+    }
+
+    /**
+     * Returns the schema declared by the annotated fields.
+     * @return the {@link ParserSchema} of the bound class
+     */
+    public ParserSchema getSchema() {
+        return mSchema;
+    }
+
+    /**
+     * Parses the given command line into a new object.
+     * @param args the command line arguments
+     * @return a new instance of the bound class
+     * @throws CmdLineException if the command line is not valid or some value
+     *         cannot be converted (see {@link ArgumentBindingException})
+     * @throws UnsupportedOperationException if the bound class has no
+     *         constructor without arguments
+     */
+    public T parse(final String[] args) throws CmdLineException {
+        final T target = newInstance();
+        parse(args, target);
+        return target;
+    }
+
+    /**
+     * Parses the given command line into the fields of the given object.
+     * @param args the command line arguments
+     * @param target object to write the arguments to
+     * @throws CmdLineException if the command line is not valid or some value
+     *         cannot be converted (see {@link ArgumentBindingException})
+     */
+    public void parse(final String[] args, final T target) throws CmdLineException {
+        bind(mSchema.parse(args), target);
+    }
+
+    /**
+     * Copies the given arguments into the fields of the given object. Fields
+     * of missing arguments are left untouched, as well as fields whose value
+     * cannot be converted.
+     * @param parsed arguments parsed by {@link #getSchema()}
+     * @param target object to write the arguments to
+     * @throws ArgumentBindingException if some values cannot be converted to
+     *         the type of their fields, after all the others have been copied
+     * @throws IllegalArgumentException if the arguments haven't been parsed by
+     *         {@link #getSchema()}
+     */
+    public void bind(final ParsedArguments parsed, final T target) throws ArgumentBindingException {
+        List<ArgumentTypeException> errors = null;
+        for (Binding binding : mBindings) {
+            if (!parsed.has(binding.mKey)) {
+                continue;
+            }
+            try {
+                binding.set(target, binding.read(parsed));
+            } catch (ArgumentTypeException ex) {
+                if (errors == null) {
+                    errors = new ArrayList<ArgumentTypeException>();
+                }
+                errors.add(ex);
+            }
+        }
+        if (errors != null) {
+            throw new ArgumentBindingException(errors);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        if (mConstructor == null) {
+            throw new UnsupportedOperationException(
+                    String.format("%s has no constructor without arguments", mType.getName()));
+        }
+        try {
+            final Object instance = mConstructor.invokeExact();
+            return (T) instance;
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(String.format("cannot create %s", mType.getName()), ex);
+        }
+    }
+
+    // annotated fields, superclasses first
+    private static List<Field> annotatedFields(final Class<?> type) {
+        final List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+
+        final List<Field> fields = new ArrayList<Field>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Switch.class) || field.isAnnotationPresent(Positional.class)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    // adds the field's argument to the schema and returns its name
+    private static String declare(final ParserSchema.Builder builder, final Field field, final Kind kind) {
+        final Positional positional = field.getAnnotation(Positional.class);
+        final Switch switchArgument = field.getAnnotation(Switch.class);
+        if (positional != null && switchArgument != null) {
+            throw new IllegalArgumentException(
+                    String.format("field %s can't be both a positional keyword and a switch", field.getName()));
+        }
+        if (positional != null && !kind.isSingleValue()) {
+            throw new IllegalArgumentException(
+                    String.format("unsupported positional keyword type %s of field %s",
+                            field.getGenericType(), field.getName()));
+        }
+
+        try {
+            if (positional != null) {
+                final String name = positional.name().isEmpty() ? field.getName() : positional.name();
+                builder.addPositional(name, positional.value());
+                return name;
+            }
+
+            final String name = switchArgument.name().isEmpty()
+                    ? toSwitchName(field.getName()) : switchArgument.name();
+            if (kind.isRepeatable()) {
+                builder.addRepeatableSwitch(name, switchArgument.shortName(), switchArgument.required());
+            } else {
+                builder.addSwitch(name, switchArgument.shortName(), kind != Kind.FLAG, switchArgument.required());
+            }
+            return name;
+        } catch (CmdLineException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+
+    private static Kind kindOf(final Field field) {
+        final int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+            throw new IllegalArgumentException(
+                    String.format("argument field %s must be neither static nor final", field.getName()));
+        }
+
+        final Class<?> type = field.getType();
+        if (type == boolean.class || type == Boolean.class) {
+            return Kind.FLAG;
+        } else if (type == String.class) {
+            return Kind.STRING;
+        } else if (type == int.class || type == Integer.class) {
+            return Kind.INT;
+        } else if (type == char.class || type == Character.class) {
+            return Kind.CHAR;
+        } else if (type == File.class) {
+            return Kind.FILE;
+        } else if (type == int[].class) {
+            return Kind.INTS;
+        } else if (type == long[].class) {
+            return Kind.LONGS;
+        } else if (type == List.class && field.getGenericType() instanceof ParameterizedType) {
+            final Type argument = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            if (argument == String.class) {
+                return Kind.STRINGS;
+            }
+        }
+        throw new IllegalArgumentException(
+                String.format("unsupported argument type %s of field %s", field.getGenericType(), field.getName()));
+    }
+
+    private static ArgumentKey<?> keyOf(final ParserSchema schema, final Kind kind, final String name) {
+        switch (kind) {
+            case INT:
+                return schema.intKey(name);
+            case CHAR:
+                return schema.charKey(name);
+            case FILE:
+                return schema.fileKey(name);
+            default:
+                return schema.stringKey(name);
+        }
+    }
+
+    private static MethodHandle setterOf(final Field field) {
+        field.setAccessible(true);
+        try {
+            return MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException(String.format("cannot access field %s", field.getName()), ex);
+        }
+    }
+
+    private static MethodHandle constructorOf(final Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())
+                || (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+            return null;
+        }
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException ex) {
+            return null;
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts a camel case field name to a switch name, with words
+     * separated by dashes (<code>dryRun</code> becomes <code>dry-run</code>),
+     * the same way <code>arguments-processor</code> does.
+     */
+    private static String toSwitchName(final String fieldName) {
+        final StringBuilder name = new StringBuilder(fieldName.length() + 4);
+        for (int i = 0; i < fieldName.length(); i++) {
+            final char c = fieldName.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    name.append('-');
+                }
+                name.append(Character.toLowerCase(c));
+            } else {
+                name.append(c == '_' ? '-' : c);
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * An annotated field, with everything needed to read its value and
+     * write it.
+     */
+    private static final class Binding {
+        private final Kind mKind;
+        private final ArgumentKey<?> mKey;
+        private final MethodHandle mSetter;
+
+        private Binding(final Kind kind, final ArgumentKey<?> key, final MethodHandle setter) {
+            mKind = kind;
+            mKey = key;
+            mSetter = setter;
+        }
+
+        private Object read(final ParsedArguments parsed) throws ArgumentTypeException {
+            switch (mKind) {
+                case FLAG:
+                    return Boolean.TRUE;
+                case STRINGS:
+                    // the returned list is a view that would change with the arguments
+                    return new ArrayList<String>(parsed.getStrings(mKey));
+                case INTS:
+                    return parsed.getInts(mKey);
+                case LONGS:
+                    return parsed.getLongs(mKey);
+                default:
+                    return parsed.get(mKey);
+            }
+        }
+
+        private void set(final Object target, final Object value) {
+            try {
+                mSetter.invokeExact(target, value);
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                // setters don't throw checked exceptions
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
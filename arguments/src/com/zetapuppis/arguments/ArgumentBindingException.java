@@ -0,0 +1,37 @@
+package com.zetapuppis.arguments;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Raised by {@link ArgumentBinder} when some arguments cannot be converted
+ * to the type of their fields. All the failed conversions are reported
+ * together, the message lists them one per line.
+ */
+public class ArgumentBindingException extends ArgumentTypeException {
+    private final List<ArgumentTypeException> mErrors;
+
+    public ArgumentBindingException(final List<ArgumentTypeException> errors) {
+        super(join(errors));
+        mErrors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the conversion errors, in the order fields are bound.
+     * @return a read-only list with at least one error
+     */
+    public List<ArgumentTypeException> getErrors() {
+        return mErrors;
+    }
+
+    private static String join(final List<ArgumentTypeException> errors) {
+        final StringBuilder message = new StringBuilder();
+        for (ArgumentTypeException error : errors) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(error.getMessage());
+        }
+        return message.toString();
+    }
+}
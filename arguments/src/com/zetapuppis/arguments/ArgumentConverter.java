@@ -0,0 +1,17 @@
+package com.zetapuppis.arguments;
+
+/**
+ * Converts the raw string value of an argument to a typed value.
+ * @param <T> type of the converted value
+ * @see ArgumentKey
+ */
+public interface ArgumentConverter<T> {
+    /**
+     * Converts the given argument's value.
+     * @param name argument's name, used for error reporting
+     * @param value raw value of the argument
+     * @return the converted value
+     * @throws ArgumentTypeException if the value cannot be converted
+     */
+    public T convert(String name, String value) throws ArgumentTypeException;
+}
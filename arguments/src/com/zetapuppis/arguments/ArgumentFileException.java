@@ -0,0 +1,11 @@
+package com.zetapuppis.arguments;
+
+/**
+ * Raised when an argument file (<code>@file</code>) cannot be read or
+ * is not formatted properly.
+ */
+public class ArgumentFileException extends CmdLineException {
+    public ArgumentFileException(final String message) {
+        super(message);
+    }
+}
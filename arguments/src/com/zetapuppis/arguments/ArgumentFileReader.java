@@ -0,0 +1,163 @@
+package com.zetapuppis.arguments;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads argument files (<code>@file</code>), pushing their tokens to a
+ * {@link TokenConsumer} while the file is being read. Streams of arguments
+ * (see {@link ArgumentInput}) are read the same way.
+ * <p>
+ * Small files are read through a single heap buffer, while files larger
+ * than {@link #MAP_THRESHOLD} are memory-mapped one window at a time. In
+ * both cases the file is decoded in fixed-size chunks and tokenized with
+ * {@link ShellTokenizer}, so memory usage doesn't depend on the size of
+ * the file.
+ */
+/* package */ final class ArgumentFileReader {
+    /* package */ final static long MAP_THRESHOLD = 1 << 20;
+    private final static int MAP_WINDOW = 64 << 20;
+    private final static int BUFFER_SIZE = 64 << 10;
+    private final static int CHAR_BUFFER_SIZE = 8 << 10;
+
+    private ArgumentFileReader() {}
+
+    /**
+     * Reads the given argument file.
+     * @param file argument file to read
+     * @param charset encoding of the file
+     * @param consumer receives the tokens read from the file
+     * @param <E> exception thrown by the consumer
+     * @throws ArgumentFileException if the file cannot be read or decoded, or
+     *         it ends inside quotes
+     * @throws E if the consumer rejects a token
+     */
+    /* package */ static <E extends Exception> void read(final File file,
+                                                         final Charset charset,
+                                                         final TokenConsumer<E> consumer)
+            throws ArgumentFileException, E {
+        final ShellTokenizer<E> tokenizer = new ShellTokenizer<E>(consumer);
+        final CharsetDecoder decoder = newDecoder(charset);
+        final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+        FileInputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            final FileChannel channel = stream.getChannel();
+            final long size = channel.size();
+
+            if (size >= MAP_THRESHOLD) {
+                long position = 0;
+                while (position < size) {
+                    final ByteBuffer window = channel.map(
+                            FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+                    final boolean last = position + window.limit() == size;
+                    decode(decoder, window, chars, tokenizer, last);
+                    // undecoded bytes at the end of the window are mapped again
+                    position += window.position();
+                }
+            } else {
+                final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(size, 16)));
+                readBuffered(channel, buffer, decoder, chars, tokenizer);
+            }
+        } catch (CharacterCodingException ex) {
+            throw new ArgumentFileException(
+                    String.format("cannot decode argument file %s", file.getPath()));
+        } catch (IOException ex) {
+            throw new ArgumentFileException(
+                    String.format("cannot read argument file %s: %s", file.getPath(), ex.getMessage()));
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ex) {
+                    // nothing else to do, the file has been read already
+                }
+            }
+        }
+
+        if (!tokenizer.finish()) {
+            throw new ArgumentFileException(
+                    String.format("unterminated quote in argument file %s", file.getPath()));
+        }
+    }
+
+    /**
+     * Reads the given channel up to its end, pushing the tokens to the given
+     * tokenizer as soon as they are read. The channel is not closed.
+     * @param channel a blocking channel
+     * @param charset encoding of the channel's content
+     * @param tokenizer splits the content into tokens
+     * @param <E> exception thrown by the tokenizer's consumer
+     * @throws IOException if the channel cannot be read or decoded
+     * @throws E if the consumer rejects a token
+     */
+    /* package */ static <E extends Exception> void read(final ReadableByteChannel channel,
+                                                         final Charset charset,
+                                                         final Tokenizer<E> tokenizer)
+            throws IOException, E {
+        readBuffered(channel, ByteBuffer.allocate(BUFFER_SIZE), newDecoder(charset),
+                CharBuffer.allocate(CHAR_BUFFER_SIZE), tokenizer);
+    }
+
+    private static <E extends Exception> void readBuffered(final ReadableByteChannel channel,
+                                                           final ByteBuffer buffer,
+                                                           final CharsetDecoder decoder,
+                                                           final CharBuffer chars,
+                                                           final Tokenizer<E> tokenizer)
+            throws IOException, E {
+        boolean last = false;
+        while (!last) {
+            last = channel.read(buffer) < 0;
+            buffer.flip();
+            decode(decoder, buffer, chars, tokenizer, last);
+            buffer.compact();
+        }
+    }
+
+    private static CharsetDecoder newDecoder(final Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    private static <E extends Exception> void decode(final CharsetDecoder decoder,
+                                                     final ByteBuffer bytes,
+                                                     final CharBuffer chars,
+                                                     final Tokenizer<E> tokenizer,
+                                                     final boolean endOfInput)
+            throws CharacterCodingException, E {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drain(chars, tokenizer);
+        } while (result.isOverflow());
+
+        if (endOfInput) {
+            do {
+                result = decoder.flush(chars);
+                drain(chars, tokenizer);
+            } while (result.isOverflow());
+        }
+    }
+
+    private static <E extends Exception> void drain(final CharBuffer chars,
+                                                    final Tokenizer<E> tokenizer) throws E {
+        chars.flip();
+        tokenizer.feed(chars);
+        chars.clear();
+    }
+}
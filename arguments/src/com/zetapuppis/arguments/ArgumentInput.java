@@ -0,0 +1,98 @@
+package com.zetapuppis.arguments;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A stream of arguments that follows the command line, such as the
+ * standard input of <code>find -print0 | tool --threads 4</code>.
+ * <p>
+ * Arguments are separated by a single {@link Delimiter}, without any
+ * quoting. The input is read in fixed-size chunks and every argument is
+ * parsed as soon as it has been read, so inputs of any size can be
+ * parsed without holding them in memory, see
+ * {@link ParserSchema#parse(String[], ArgumentInput, java.util.function.Consumer)}.
+ * <p>
+ * Instances are immutable, {@link #withCharset(Charset)} returns a copy.
+ */
+public final class ArgumentInput {
+    /**
+     * What separates the arguments of an input.
+     */
+    public enum Delimiter {
+        /** One argument per line, as in <code>ls -1</code>. */
+        NEWLINE('\n'),
+        /** Arguments terminated by NUL, as in <code>find -print0</code>. */
+        NUL('\0');
+
+        private final char mChar;
+
+        Delimiter(final char c) {
+            mChar = c;
+        }
+
+        /* package */ char getChar() {
+            return mChar;
+        }
+    }
+
+    private final ReadableByteChannel mChannel;
+    private final Delimiter mDelimiter;
+    private final Charset mCharset;
+
+    private ArgumentInput(final ReadableByteChannel channel, final Delimiter delimiter, final Charset charset) {
+        mChannel = channel;
+        mDelimiter = delimiter;
+        mCharset = charset;
+    }
+
+    /**
+     * Creates an input reading from the given channel, encoded in UTF-8.
+     * @param channel a blocking channel, read up to its end and not closed
+     * @param delimiter what separates the arguments
+     * @return a new {@link ArgumentInput}
+     */
+    public static ArgumentInput of(final ReadableByteChannel channel, final Delimiter delimiter) {
+        return new ArgumentInput(channel, delimiter, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Creates an input reading from the given stream, encoded in UTF-8.
+     * @param stream a stream, read up to its end and not closed
+     * @param delimiter what separates the arguments
+     * @return a new {@link ArgumentInput}
+     */
+    public static ArgumentInput of(final InputStream stream, final Delimiter delimiter) {
+        // file streams are read through their own channel, while other streams,
+        // including System.in (a BufferedInputStream), are wrapped: unwrapping
+        // System.in would skip whatever it has already buffered
+        final ReadableByteChannel channel = stream instanceof FileInputStream
+                ? ((FileInputStream) stream).getChannel()
+                : Channels.newChannel(stream);
+        return of(channel, delimiter);
+    }
+
+    /**
+     * Returns a copy of this input with a different encoding.
+     * @param charset encoding of the input
+     * @return a new {@link ArgumentInput}
+     */
+    public ArgumentInput withCharset(final Charset charset) {
+        return new ArgumentInput(mChannel, mDelimiter, charset);
+    }
+
+    /* package */ ReadableByteChannel getChannel() {
+        return mChannel;
+    }
+
+    /* package */ Delimiter getDelimiter() {
+        return mDelimiter;
+    }
+
+    /* package */ Charset getCharset() {
+        return mCharset;
+    }
+}
@@ -0,0 +1,10 @@
+package com.zetapuppis.arguments;
+
+/**
+ * Raised when arguments cannot be read from an {@link ArgumentInput}.
+ */
+public class ArgumentInputException extends CmdLineException {
+    public ArgumentInputException(final String message) {
+        super(message);
+    }
+}
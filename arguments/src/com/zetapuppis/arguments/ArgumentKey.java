@@ -0,0 +1,51 @@
+package com.zetapuppis.arguments;
+
+/**
+ * A typed handle to an argument declared in a {@link ParserSchema}.
+ * <p>
+ * Keys are resolved once against the schema and then read the argument's
+ * value from {@link ParsedArguments} by its slot, without looking up the
+ * argument by name:
+ * <pre>
+ *   final ArgumentKey&lt;Integer&gt; threads = schema.intKey("threads");
+ *   ...
+ *   int value = schema.parse(args).get(threads);
+ * </pre>
+ * Keys are immutable and can be shared between threads, they can only be
+ * used with {@link ParsedArguments} produced by the schema that created them.
+ * @param <T> type of the argument's value
+ * @see ParserSchema#key(String, ArgumentConverter)
+ */
+public final class ArgumentKey<T> {
+    private final SlotTable mSlotTable;
+    private final int mSlot;
+    private final ArgumentConverter<T> mConverter;
+
+    /* package */ ArgumentKey(final SlotTable slotTable,
+                              final int slot,
+                              final ArgumentConverter<T> converter) {
+        mSlotTable = slotTable;
+        mSlot = slot;
+        mConverter = converter;
+    }
+
+    /**
+     * Returns the name of the argument this key refers to.
+     * @return the argument's name
+     */
+    public String getName() {
+        return mSlotTable.nameOf(mSlot);
+    }
+
+    /* package */ SlotTable getSlotTable() {
+        return mSlotTable;
+    }
+
+    /* package */ int getSlot() {
+        return mSlot;
+    }
+
+    /* package */ ArgumentConverter<T> getConverter() {
+        return mConverter;
+    }
+}
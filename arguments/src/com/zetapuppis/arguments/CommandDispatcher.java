@@ -0,0 +1,182 @@
+package com.zetapuppis.arguments;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses command lines in the form <code>tool command [arguments]</code>,
+ * where each subcommand accepts its own set of arguments.
+ * <p>
+ * Each subcommand's {@link ParserSchema} is defined by a
+ * {@link SchemaFactory} that is only invoked the first time the subcommand
+ * is selected, so that the cost of defining the arguments is only paid for
+ * the subcommands that are actually used. The subcommand is looked up in a
+ * hash table and its arguments are parsed in place, right after the
+ * subcommand's name, without copying the argument list:
+ * <pre>
+ *   final CommandDispatcher dispatcher = CommandDispatcher.builder()
+ *           .addCommand("ingest", () -&gt; ParserSchema.builder()
+ *                   .addPositional("input", 1)
+ *                   .build())
+ *           .build();
+ *
+ *   final ParsedCommand command = dispatcher.parse(args);
+ * </pre>
+ * Instances of this class can be safely shared between threads.
+ */
+public final class CommandDispatcher {
+    private final Map<String, Command> mCommands;
+
+    private CommandDispatcher(final Map<String, Command> commands) {
+        mCommands = commands;
+    }
+
+    /**
+     * Creates a new {@link Builder} for a {@link CommandDispatcher}.
+     * @return an empty {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parse the given command line string list, whose first argument is
+     * the name of the subcommand.
+     * @param args input argument list
+     * @return the selected subcommand and its arguments
+     * @throws CmdLineException if the subcommand is missing or unknown, or
+     *         its arguments cannot be parsed
+     * @see #parse(String[], int)
+     */
+    public ParsedCommand parse(final String[] args) throws CmdLineException {
+        return parse(args, 0);
+    }
+
+    /**
+     * Parse the given command line string list, ignoring the arguments that
+     * come before the given offset. The argument at the given offset is
+     * the name of the subcommand, the following ones are parsed with the
+     * subcommand's {@link ParserSchema}.
+     * @param args input argument list
+     * @param offset index of the subcommand's name
+     * @return the selected subcommand and its arguments
+     * @throws CmdLineException if the subcommand is missing or unknown, or
+     *         its arguments cannot be parsed
+     */
+    public ParsedCommand parse(final String[] args, final int offset) throws CmdLineException {
+        if (offset < 0 || offset > args.length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("offset %d out of bounds for %d arguments", offset, args.length));
+        }
+        if (offset == args.length) {
+            throw new CmdLineException("missing command");
+        }
+
+        final String name = args[offset];
+        return new ParsedCommand(name, getSchema(name).parse(args, offset + 1));
+    }
+
+    /**
+     * Returns the schema of the given subcommand, building it if it's the
+     * first time the subcommand is used.
+     * @param name name of the subcommand
+     * @return the subcommand's {@link ParserSchema}
+     * @throws CmdLineException if the subcommand is unknown or its schema
+     *         cannot be built (including factories returning null)
+     */
+    public ParserSchema getSchema(final String name) throws CmdLineException {
+        final Command command = mCommands.get(name);
+        if (command == null) {
+            throw new CmdLineException(String.format("%s is an unknown command", name));
+        }
+        return command.getSchema();
+    }
+
+    /**
+     * Checks whether a subcommand with the given name exists.
+     * @param name name of the subcommand
+     * @return true if the subcommand exists or false otherwise
+     */
+    public boolean hasCommand(final String name) {
+        return mCommands.containsKey(name);
+    }
+
+    // a subcommand whose schema is built on first use
+    private static final class Command {
+        private final String mName;
+        private final SchemaFactory mFactory;
+        private volatile ParserSchema mSchema = null;
+
+        private Command(final String name, final SchemaFactory factory) {
+            mName = name;
+            mFactory = factory;
+        }
+
+        private ParserSchema getSchema() throws CmdLineException {
+            ParserSchema schema = mSchema;
+            if (schema == null) {
+                synchronized (this) {
+                    schema = mSchema;
+                    if (schema == null) {
+                        schema = mFactory.create();
+                        if (schema == null) {
+                            throw new CmdLineException(
+                                    String.format("the schema factory of command %s returned null", mName));
+                        }
+                        mSchema = schema;
+                    }
+                }
+            }
+            return schema;
+        }
+    }
+
+    /**
+     * Builder for {@link CommandDispatcher} instances.
+     */
+    public static final class Builder {
+        private final Map<String, SchemaFactory> mFactories = new HashMap<String, SchemaFactory>();
+
+        private Builder() {}
+
+        /**
+         * Adds a subcommand.
+         * @param name unique name of the subcommand
+         * @param factory defines the subcommand's arguments, it's invoked
+         *                the first time the subcommand is selected
+         * @return this {@link Builder}
+         * @throws CmdLineException if a subcommand with the same name already exists
+         */
+        public Builder addCommand(final String name, final SchemaFactory factory) throws CmdLineException {
+            if (mFactories.containsKey(name)) {
+                throw new CmdLineException(String.format("'%s' is a duplicate command name", name));
+            }
+            mFactories.put(name, factory);
+            return this;
+        }
+
+        /**
+         * Adds a subcommand whose schema has already been built.
+         * @param name unique name of the subcommand
+         * @param schema the subcommand's arguments
+         * @return this {@link Builder}
+         * @throws CmdLineException if a subcommand with the same name already exists
+         */
+        public Builder addCommand(final String name, final ParserSchema schema) throws CmdLineException {
+            return addCommand(name, () -> schema);
+        }
+
+        /**
+         * Builds an immutable {@link CommandDispatcher} with the subcommands
+         * added so far. None of the subcommands' schemas is built yet.
+         * @return a new {@link CommandDispatcher}
+         */
+        public CommandDispatcher build() {
+            final Map<String, Command> commands = new HashMap<String, Command>(mFactories.size() * 2);
+            for (Map.Entry<String, SchemaFactory> factory : mFactories.entrySet()) {
+                commands.put(factory.getKey(), new Command(factory.getKey(), factory.getValue()));
+            }
+            return new CommandDispatcher(commands);
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.zetapuppis.arguments;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Parses arguments from command line.
@@ -23,10 +21,7 @@ import java.util.Set;
  */
 public class CommandLineParser {
     private final String[] mArgs;
-    private final PositionalParser mPositionalParser = new PositionalParser();
-    private final SwitchParser mSwitchParser = new SwitchParser();
-    private final Set<String> mArgumentNameSet = new HashSet<String>();
-    private int mPositionalArgumentsCount = 0;
+    private final ParserSchema.Builder mSchemaBuilder = ParserSchema.builder();
 
     private CommandLineParser(final String[] args) {
         mArgs = new String[args.length];
@@ -36,6 +31,10 @@ public class CommandLineParser {
     /**
      * Creates a new {@link CommandLineParser} instance from the current argument
      * list.
+     * <p>
+     * The given array is copied, so that changing it afterwards doesn't
+     * change what is parsed. Use {@link ParserSchema} to parse an array
+     * without copying it.
      * @param args input argument list
      * @return an instance of {@link CommandLineParser}
      */
@@ -73,14 +72,22 @@ public class CommandLineParser {
      *         with the same name already exists
      */
     public CommandLineParser addPositional(final PositionalArgument positionalArgument) throws CmdLineException {
-        if (mArgumentNameSet.contains(positionalArgument.getName())) {
-            throw new CmdLineException(
-                    String.format("'%s' is a duplicate argument name for positional argument", positionalArgument.getName()));
-        }
-        mArgumentNameSet.add(positionalArgument.getName());
-        mPositionalParser.addPositional(positionalArgument);
-        mPositionalArgumentsCount++;
+        mSchemaBuilder.addPositional(positionalArgument);
+        return this;
+    }
 
+    /**
+     * Returns a {@link CommandLineParser} that behaves equivalently to {@code this}
+     * {@link CommandLineParser} but that will also collect all the remaining
+     * arguments in the given variadic positional keyword, see
+     * {@link ParserSchema.Builder#addRest(String)}.
+     * @param name unique name of the variadic keyword
+     * @return a {@link CommandLineParser} with the desired configuration
+     * @throws CmdLineException if a keyword with the same name already exists
+     *         or a variadic keyword has already been added
+     */
+    public CommandLineParser addRest(final String name) throws CmdLineException {
+        mSchemaBuilder.addRest(name);
         return this;
     }
 
@@ -118,6 +125,23 @@ public class CommandLineParser {
         return addSwitch(new SwitchArgument(name, shortName, hasValue, isRequired));
     }
 
+    /**
+     * Returns a {@link CommandLineParser} that behaves equivalently to {@code this}
+     * {@link CommandLineParser} but that will also parse the given repeatable
+     * switch-based argument. Repeatable switches always have a value and keep
+     * all the values they've been given, see {@link ParsedArguments#getStrings(String)}.
+     * @param name unique name of the switch argument to parse
+     * @param shortName short version of the same switch argument
+     * @param isRequired if the argument is mandatory
+     * @return a {@link CommandLineParser} with the desired configuration
+     * @throws CmdLineException if a switch argument with the same name already exists
+     */
+    public CommandLineParser addRepeatableSwitch(final String name,
+                                                 final String shortName,
+                                                 final boolean isRequired) throws CmdLineException {
+        return addSwitch(new SwitchArgument(name, shortName, true, isRequired, true));
+    }
+
     /**
      * Returns a {@link CommandLineParser} that behaves equivalently to {@code this}
      * {@link CommandLineParser} but that will also parse the given switch-based
@@ -129,17 +153,27 @@ public class CommandLineParser {
      * @throws CmdLineException if a switch argument with the same name already exists
      */
     public CommandLineParser addSwitch(final SwitchArgument switchArgument) throws CmdLineException {
-        if (mArgumentNameSet.contains(switchArgument.getName())) {
-            throw new CmdLineException(
-                    String.format("'%s' is a duplicate argument name for keyword", switchArgument.getName()));
-        }
-        mArgumentNameSet.add(switchArgument.getName());
-        mSwitchParser.addSwitch(switchArgument);
+        mSchemaBuilder.addSwitch(switchArgument);
+        return this;
+    }
+
+    /**
+     * Sets the listener notified when the command line is parsed and when
+     * the parsed arguments are read.
+     * @param listener a {@link ParseListener}, or null to remove the current one
+     * @return this {@link CommandLineParser}
+     * @see ParserSchema.Builder#withListener(ParseListener)
+     */
+    public CommandLineParser withListener(final ParseListener listener) {
+        mSchemaBuilder.withListener(listener);
         return this;
     }
 
     /**
      * Parse the command line string list.
+     * <p>
+     * Arguments are walked only once and stored straight into the returned
+     * {@link ParsedArguments}, see {@link ParserSchema#parse(String[], int)}.
      * @return a {@link ParsedArguments} instance whose fields have been valorized
      *         with the parsed argument's values
      * @throws SwitchArgumentException if some error happens while parsing switch-based
@@ -148,22 +182,31 @@ public class CommandLineParser {
      *         positional keywords
      */
     public ParsedArguments parse() throws SwitchArgumentException, PositionalArgumentException {
-        final ParsedArguments parsed = new ParsedArguments();
-        String[] argsCopy = new String[mArgs.length];
-        System.arraycopy(mArgs, 0, argsCopy, 0, mArgs.length);
-
-        final ParsedArguments parsedPositions = mPositionalParser.parse(argsCopy);
-        for (Map.Entry<String, String> k : parsedPositions) {
-            parsed.set(k.getKey(), k.getValue());
-        }
-
-        argsCopy = LineUtils.shiftArgs(argsCopy, mPositionalArgumentsCount);
+        return mSchemaBuilder.build().parseLiteral(mArgs, 0);
+    }
 
-        final ParsedArguments parsedSwitches = mSwitchParser.parse(argsCopy);
-        for (Map.Entry<String, String> o : parsedSwitches) {
-            parsed.set(o.getKey(), o.getValue());
+    /**
+     * Parse the command line string list followed by the arguments read from
+     * the given input, handing the values read from the input to the given
+     * consumer while it is being read.
+     * @param input arguments that follow the command line
+     * @param values receives the values read from the input
+     * @return a {@link ParsedArguments} instance whose fields have been valorized
+     *         with the parsed argument's values
+     * @throws SwitchArgumentException if some error happens while parsing switch-based
+     *         arguments
+     * @throws PositionalArgumentException if some error happens while parsing
+     *         positional keywords
+     * @throws ArgumentInputException if the input cannot be read or decoded
+     * @see ParserSchema#parse(String[], ArgumentInput, Consumer)
+     */
+    public ParsedArguments parse(final ArgumentInput input, final Consumer<String> values)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentInputException {
+        try {
+            return mSchemaBuilder.build().parse(mArgs, input, values);
+        } catch (ArgumentFileException ex) {
+            // argument files are not expanded
+            throw new IllegalStateException(ex);
         }
-
-        return parsed;
     }
 }
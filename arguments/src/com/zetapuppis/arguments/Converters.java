@@ -0,0 +1,78 @@
+package com.zetapuppis.arguments;
+
+import java.io.File;
+
+/**
+ * Built-in {@link ArgumentConverter} implementations, shared by the
+ * {@link ParsedArguments} getters and the {@link ArgumentKey} handles.
+ */
+/* package */ final class Converters {
+    private Converters() {}
+
+    /* package */ final static ArgumentConverter<String> STRING = new ArgumentConverter<String>() {
+        @Override
+        public String convert(final String name, final String value) {
+            return value;
+        }
+    };
+
+    /* package */ final static ArgumentConverter<Integer> INTEGER = new ArgumentConverter<Integer>() {
+        @Override
+        public Integer convert(final String name, final String value) throws ArgumentTypeException {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException ex) {
+                throw new ArgumentTypeException(
+                        String.format("cannot convert %s to integer for argument %s",
+                                value, name));
+            }
+        }
+    };
+
+    /* package */ final static ArgumentConverter<Character> CHARACTER = new ArgumentConverter<Character>() {
+        @Override
+        public Character convert(final String name, final String value) throws ArgumentTypeException {
+            if (value.length() != 1) {
+                throw new ArgumentTypeException(
+                        String.format("value %s for argument %s was not a single character", value, name));
+            }
+            return value.charAt(0);
+        }
+    };
+
+    /* package */ final static ArgumentConverter<File> FILE = new ArgumentConverter<File>() {
+        @Override
+        public File convert(final String name, final String value) {
+            return new File(value);
+        }
+    };
+
+    /* package */ final static ArgumentConverter<File> NEW_FILE = new ArgumentConverter<File>() {
+        @Override
+        public File convert(final String name, final String value) throws ArgumentTypeException {
+            final File file = new File(value);
+
+            if (file.exists()) {
+                throw new ArgumentTypeException(String.format("file %s already exists", file.getPath()));
+            }
+            return file;
+        }
+    };
+
+    /* package */ final static ArgumentConverter<File> EXISTING_FILE = new ArgumentConverter<File>() {
+        @Override
+        public File convert(final String name, final String value) throws ArgumentTypeException {
+            final File file = new File(value);
+
+            if (!file.exists()) {
+                throw new ArgumentTypeException(String.format("file %s doesn't exists", file.getPath()));
+            }
+
+            if (file.isDirectory()) {
+                throw new ArgumentTypeException(String.format("%s is a directory", file.getPath()));
+            }
+
+            return file;
+        }
+    };
+}
@@ -0,0 +1,84 @@
+package com.zetapuppis.arguments;
+
+import java.nio.CharBuffer;
+
+/**
+ * A {@link Tokenizer} that splits text on a single delimiter character,
+ * with no quoting nor escaping, such as the output of
+ * <code>find -print0</code>.
+ * <p>
+ * Empty tokens are skipped. When splitting lines, a carriage return right
+ * before the line feed is dropped as well.
+ * <p>
+ * Tokens that fit in a single chunk are created straight from the chunk,
+ * only tokens spanning more than one chunk are accumulated.
+ * @param <E> exception thrown by the consumer
+ */
+/* package */ final class DelimitedTokenizer<E extends Exception> implements Tokenizer<E> {
+    private final TokenConsumer<E> mConsumer;
+    private final char mDelimiter;
+    // beginning of a token that spans more than one chunk
+    private final StringBuilder mToken = new StringBuilder();
+
+    /* package */ DelimitedTokenizer(final TokenConsumer<E> consumer, final char delimiter) {
+        mConsumer = consumer;
+        mDelimiter = delimiter;
+    }
+
+    @Override
+    public void feed(final CharBuffer chars) throws E {
+        if (!chars.hasArray()) {
+            while (chars.hasRemaining()) {
+                final char c = chars.get();
+                if (c == mDelimiter) {
+                    emit();
+                } else {
+                    mToken.append(c);
+                }
+            }
+            return;
+        }
+
+        final char[] array = chars.array();
+        final int end = chars.arrayOffset() + chars.limit();
+        int start = chars.arrayOffset() + chars.position();
+        for (int i = start; i < end; i++) {
+            if (array[i] != mDelimiter) {
+                continue;
+            }
+            if (mToken.length() == 0) {
+                emit(array, start, i);
+            } else {
+                mToken.append(array, start, i - start);
+                emit();
+            }
+            start = i + 1;
+        }
+        mToken.append(array, start, end - start);
+        chars.position(chars.limit());
+    }
+
+    @Override
+    public boolean finish() throws E {
+        emit();
+        return true;
+    }
+
+    private void emit(final char[] array, final int from, final int to) throws E {
+        final int end = mDelimiter == '\n' && to > from && array[to - 1] == '\r' ? to - 1 : to;
+        if (end > from) {
+            mConsumer.accept(new String(array, from, end - from));
+        }
+    }
+
+    private void emit() throws E {
+        int length = mToken.length();
+        if (mDelimiter == '\n' && length > 0 && mToken.charAt(length - 1) == '\r') {
+            length--;
+        }
+        if (length > 0) {
+            mConsumer.accept(mToken.substring(0, length));
+        }
+        mToken.setLength(0);
+    }
+}
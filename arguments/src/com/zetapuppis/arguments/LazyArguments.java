@@ -0,0 +1,160 @@
+package com.zetapuppis.arguments;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ParsedArguments} that read their command line on demand.
+ * <p>
+ * Positional keywords are read right away, while switches are only read
+ * when some getter first asks for one of them: the rest of the command
+ * line is then scanned once and everything seen is kept. Since a switch
+ * could be given again anywhere, switches are only known once the whole
+ * command line has been scanned, so that a switch given more than once
+ * keeps its last value and counts every occurrence exactly like with
+ * {@link ParserSchema#parse(String[])}, and fallback values (see
+ * {@link ParserSchema.Builder#withEnvironmentPrefix(String)}) apply the
+ * same way.
+ * <p>
+ * This is intended: reading the first switch costs as much as parsing the
+ * switches with {@link ParserSchema#parse(String[])}, only reading the
+ * positional keywords is independent of the length of the command line.
+ * The scan ends where the variadic keyword starts (see
+ * {@link ParserSchema.Builder#addRest(String)}), so wrappers that hand a
+ * long tail of arguments over to some other tool only scan their own
+ * switches.
+ * <p>
+ * Errors found while scanning (unknown switches, missing values,
+ * unreadable argument files) stop the scan: arguments that come after the
+ * error are considered missing, and the error is thrown by
+ * {@link #validate()}, which should be called before trusting the
+ * absence of an argument.
+ *
+ * @see ParserSchema#parseLazily(String[], int)
+ */
+public final class LazyArguments extends ParsedArguments {
+    private final ParserSchema mSchema;
+    private final ParseSession mSession;
+    private final int mPositionalCount;
+    private final String[] mFallbacks;
+    private final String[] mArgs;
+    // see ParserSchema#literalFrom()
+    private final int mLiteralFrom;
+    // index of the next argument to scan
+    private int mNext;
+    // first error found while scanning, if any
+    private CmdLineException mError = null;
+
+    /* package */ LazyArguments(final ParserSchema schema,
+                                final SlotTable slotTable,
+                                final SwitchIndex switchIndex,
+                                final int positionalCount,
+                                final String[] fallbacks,
+                                final ParseListener listener,
+                                final ValuePool valuePool,
+                                final String[] args,
+                                final int offset) {
+        super(slotTable);
+        mSchema = schema;
+        mSession = new ParseSession(switchIndex, positionalCount, this);
+        mSession.setListener(listener);
+        mSession.setValuePool(valuePool);
+        setRestName(schema.getRestName());
+        setListener(listener);
+        mPositionalCount = positionalCount;
+        mFallbacks = fallbacks;
+        mArgs = args;
+        mLiteralFrom = schema.literalFrom(args, offset);
+        mNext = offset;
+        if (offset == args.length) {
+            mSession.applyFallbacks(mFallbacks);
+        }
+
+        // positional keywords come first anyway
+        final int positionalEnd = (int) Math.min((long) offset + positionalCount, args.length);
+        while (mNext < positionalEnd && mError == null) {
+            scanNext();
+        }
+    }
+
+    private void scanNext() {
+        try {
+            mSchema.accept(mArgs, mNext++, mLiteralFrom, mSession);
+        } catch (CmdLineException ex) {
+            mError = ex;
+            return;
+        }
+        if (mSession.isComplete()) {
+            // the variadic keyword took the rest of the command line
+            mNext = mArgs.length;
+        }
+        if (mNext == mArgs.length) {
+            // fallback values can't be overridden by the command line anymore
+            mSession.applyFallbacks(mFallbacks);
+        }
+    }
+
+    private void scanAll() {
+        while (mNext < mArgs.length && mError == null) {
+            scanNext();
+        }
+    }
+
+    @Override
+    public List<String> getRest() {
+        scanAll();
+        return super.getRest();
+    }
+
+    @Override
+    /* package */ void resolve(final int slot) {
+        if (slot >= mPositionalCount) {
+            // a switch can be given again later on, or be counted
+            scanAll();
+        }
+    }
+
+    /**
+     * Scans the rest of the command line and checks that it is valid and
+     * that all the required arguments are present.
+     * @throws SwitchArgumentException if some switch is not valid or a required
+     *         switch is missing
+     * @throws PositionalArgumentException if some positional keyword is missing
+     * @throws ArgumentFileException if an argument file cannot be read
+     */
+    public void validate() throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException {
+        scanAll();
+
+        if (mError instanceof SwitchArgumentException) {
+            throw (SwitchArgumentException) mError;
+        } else if (mError instanceof ArgumentFileException) {
+            throw (ArgumentFileException) mError;
+        }
+        mSession.finishPositionals();
+        mSession.finishSwitches();
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+        scanAll();
+        return super.iterator();
+    }
+
+    @Override
+    public ParsedArguments snapshot() {
+        scanAll();
+        return super.snapshot();
+    }
+
+    /**
+     * Removes all the arguments, including the ones that haven't been
+     * scanned yet.
+     */
+    @Override
+    public void reset() {
+        mNext = mArgs.length;
+        mError = null;
+        super.reset();
+    }
+}
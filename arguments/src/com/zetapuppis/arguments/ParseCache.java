@@ -0,0 +1,234 @@
+package com.zetapuppis.arguments;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the command lines parsed by a {@link ParserSchema},
+ * see {@link ParserSchema.Builder#withParseCache(int)}.
+ * <p>
+ * Command lines are looked up by their content, so that parsing the same
+ * arguments again returns the same immutable
+ * {@link ParsedArguments#snapshot() snapshot} without reading them.
+ * Command lines that fail to parse are not cached.
+ * <p>
+ * Entries are split in segments by hash, each one with its own lock and
+ * its own least recently used order: threads looking up different command
+ * lines rarely wait for each other, and the least recently used entry of
+ * a full segment is evicted when a new one is added to it. Small caches
+ * have a single segment, and so a strict least recently used order.
+ */
+public final class ParseCache {
+    // segments per available processor, to keep lock contention low
+    private final static int SEGMENTS_PER_THREAD = 4;
+    // smaller segments would make the eviction order too approximate
+    private final static int MIN_SEGMENT_CAPACITY = 8;
+
+    private final int mCapacity;
+    private final Segment[] mSegments;
+    private final int mSegmentMask;
+    private final LongAdder mHits = new LongAdder();
+    private final LongAdder mMisses = new LongAdder();
+    private final LongAdder mEvictions = new LongAdder();
+
+    /* package */ ParseCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("invalid capacity %d", capacity));
+        }
+        final int wanted = Runtime.getRuntime().availableProcessors() * SEGMENTS_PER_THREAD;
+        final int segments = Integer.highestOneBit(
+                Math.max(1, Math.min(wanted, capacity / MIN_SEGMENT_CAPACITY)));
+
+        mCapacity = capacity;
+        mSegments = new Segment[segments];
+        mSegmentMask = segments - 1;
+        for (int i = 0; i < segments; i++) {
+            // spread the capacity so that segments add up to it exactly
+            mSegments[i] = new Segment(capacity / segments + (i < capacity % segments ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the arguments cached for the given key.
+     * @param key a key created on the command line being parsed
+     * @return the cached arguments, or null if the command line is not cached
+     */
+    /* package */ ParsedArguments get(final Key key) {
+        final Segment segment = segmentOf(key);
+        final ParsedArguments parsed;
+        synchronized (segment) {
+            parsed = segment.get(key);
+        }
+        if (parsed == null) {
+            mMisses.increment();
+        } else {
+            mHits.increment();
+        }
+        return parsed;
+    }
+
+    /**
+     * Caches the given arguments.
+     * @param key a key created on the parsed command line, which is copied
+     * @param parsed immutable arguments
+     */
+    /* package */ void put(final Key key, final ParsedArguments parsed) {
+        final Key copy = key.copy();
+        final Segment segment = segmentOf(copy);
+        synchronized (segment) {
+            segment.put(copy, parsed);
+        }
+    }
+
+    private Segment segmentOf(final Key key) {
+        final int hash = key.hashCode();
+        return mSegments[(hash ^ (hash >>> 16)) & mSegmentMask];
+    }
+
+    /**
+     * Returns the maximum number of command lines kept by this cache.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of command lines currently cached.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of command lines found in the cache.
+     */
+    public long getHitCount() {
+        return mHits.sum();
+    }
+
+    /**
+     * Returns the number of command lines that had to be parsed.
+     */
+    public long getMissCount() {
+        return mMisses.sum();
+    }
+
+    /**
+     * Returns the fraction of command lines found in the cache.
+     * @return a value between 0 and 1, or 0 if no command line has been
+     *         looked up
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of command lines evicted to make room for others.
+     */
+    public long getEvictionCount() {
+        return mEvictions.sum();
+    }
+
+    /**
+     * Removes all the cached command lines and clears the statistics.
+     */
+    public void clear() {
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        mHits.reset();
+        mMisses.reset();
+        mEvictions.reset();
+    }
+
+    /**
+     * A command line, from a given offset. Keys are created over the
+     * arguments being parsed without copying them, and only copied when
+     * they are added to the cache.
+     */
+    /* package */ static final class Key {
+        private final String[] mArgs;
+        private final int mOffset;
+        private final int mHash;
+
+        /* package */ Key(final String[] args, final int offset) {
+            this(args, offset, hash(args, offset));
+        }
+
+        private Key(final String[] args, final int offset, final int hash) {
+            mArgs = args;
+            mOffset = offset;
+            mHash = hash;
+        }
+
+        private static int hash(final String[] args, final int offset) {
+            int hash = 1;
+            for (int i = offset; i < args.length; i++) {
+                hash = 31 * hash + args[i].hashCode();
+            }
+            return hash;
+        }
+
+        private Key copy() {
+            return new Key(Arrays.copyOfRange(mArgs, mOffset, mArgs.length), 0, mHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            final int length = mArgs.length - mOffset;
+            if (mHash != other.mHash || length != other.mArgs.length - other.mOffset) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!mArgs[mOffset + i].equals(other.mArgs[other.mOffset + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // a part of the cache in access order, guarded by its own monitor
+    private final class Segment extends LinkedHashMap<Key, ParsedArguments> {
+        private static final long serialVersionUID = 1L;
+        private final int mSegmentCapacity;
+
+        private Segment(final int capacity) {
+            super(16, 0.75f, true);
+            mSegmentCapacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, ParsedArguments> eldest) {
+            if (size() > mSegmentCapacity) {
+                mEvictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.zetapuppis.arguments;
+
+/**
+ * A problem found in a command line by {@link ParserSchema#tryParse(String[])}.
+ * <p>
+ * Errors are cheap to create: they only record what went wrong and the
+ * argument involved, while the message is formatted the first time it is
+ * requested and no exception (nor stack trace) is created unless
+ * {@link #toException()} is called. Messages are the same as the ones of
+ * the exceptions thrown by {@link ParserSchema#parse(String[])}.
+ */
+public final class ParseError {
+    /**
+     * What went wrong.
+     */
+    public enum Code {
+        /** A switch that hasn't been declared. */
+        UNKNOWN_SWITCH("%s is an unknown argument"),
+        /** An abbreviation that matches more than one switch. */
+        AMBIGUOUS_SWITCH("%s is an ambiguous argument"),
+        /** A value given to a switch that doesn't accept one. */
+        UNEXPECTED_VALUE("%s gives a value to a switch that doesn't accept one"),
+        /** An argument that is neither a positional keyword nor a switch. */
+        UNEXPECTED_ARGUMENT("invalid arguments"),
+        /** A switch at the end of the command line without its value. */
+        MISSING_VALUE("missing value for %s"),
+        /** A required switch that is missing. */
+        MISSING_REQUIRED("%s was a required argument"),
+        /** A positional keyword that is missing. */
+        MISSING_POSITIONAL("not enough keyword arguments"),
+        /** An argument file that cannot be read. */
+        ARGUMENT_FILE("cannot read argument file %s");
+
+        private final String mFormat;
+
+        Code(final String format) {
+            mFormat = format;
+        }
+
+        /* package */ String format(final String argument) {
+            return String.format(mFormat, argument);
+        }
+    }
+
+    private final Code mCode;
+    private final String mArgument;
+    // formatted on demand
+    private String mMessage;
+
+    /* package */ ParseError(final Code code, final String argument) {
+        this(code, argument, null);
+    }
+
+    /* package */ ParseError(final Code code, final String argument, final String message) {
+        mCode = code;
+        mArgument = argument;
+        mMessage = message;
+    }
+
+    /**
+     * Returns what went wrong.
+     * @return the error's {@link Code}
+     */
+    public Code getCode() {
+        return mCode;
+    }
+
+    /**
+     * Returns the argument involved: the offending token for errors found
+     * while reading the command line, the name of the missing argument
+     * otherwise, or the argument file (including its <code>@</code>).
+     * @return the argument involved in the error
+     */
+    public String getArgument() {
+        return mArgument;
+    }
+
+    /**
+     * Returns a description of the error.
+     * @return the error's message
+     */
+    public String getMessage() {
+        // racy but harmless: all threads format the same message
+        if (mMessage == null) {
+            mMessage = mCode.format(mArgument);
+        }
+        return mMessage;
+    }
+
+    /**
+     * Creates the exception that {@link ParserSchema#parse(String[])} throws
+     * for this error.
+     * @return a {@link PositionalArgumentException} for missing positional
+     *         keywords, an {@link ArgumentFileException} for unreadable
+     *         argument files or a {@link SwitchArgumentException} otherwise
+     */
+    public CmdLineException toException() {
+        switch (mCode) {
+            case MISSING_POSITIONAL:
+                return new PositionalArgumentException(getMessage());
+            case ARGUMENT_FILE:
+                return new ArgumentFileException(getMessage());
+            default:
+                return new SwitchArgumentException(getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mCode + ": " + getMessage();
+    }
+}
@@ -0,0 +1,46 @@
+package com.zetapuppis.arguments;
+
+/**
+ * Receives parsing events, to measure how command lines are parsed and
+ * which arguments are actually used.
+ * <p>
+ * Listeners are installed with {@link ParserSchema.Builder#withListener(ParseListener)},
+ * {@link CommandLineParser#withListener(ParseListener)} or
+ * {@link SwitchParser#withListener(ParseListener)}; without a listener
+ * no event is created and nothing is measured. All the methods do nothing
+ * by default. Since schemas are shared between threads, listeners should
+ * be thread-safe and return quickly: they are called by the parsing
+ * thread.
+ *
+ * @see ParseMetrics
+ */
+public interface ParseListener {
+    /**
+     * Called when a command line has been parsed, successfully or not.
+     * Command lines parsed lazily (see {@link ParserSchema#parseLazily(String[])})
+     * are not reported, since they don't have a definite end.
+     * @param tokenCount number of tokens read, including the ones read from
+     *                   argument files
+     * @param durationNanos time spent parsing, in nanoseconds
+     * @param success whether the command line was valid
+     */
+    default void onParse(int tokenCount, long durationNanos, boolean success) {
+    }
+
+    /**
+     * Called for every switch in a command line that hasn't been declared.
+     * @param token the unknown switch
+     */
+    default void onUnknownSwitch(String token) {
+    }
+
+    /**
+     * Called the first time an argument is read from some
+     * {@link ParsedArguments}, by any getter, whether the argument is
+     * present or not. Reads from {@link ParsedArguments#snapshot() snapshots}
+     * and iterations over all the arguments are not reported.
+     * @param name name of the argument
+     */
+    default void onAccess(String name) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.zetapuppis.arguments;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ParseListener} that keeps running totals of the parsing
+ * events, meant to be read periodically by a metrics exporter.
+ * <p>
+ * Counters are updated without locking and can be shared by any number
+ * of schemas and threads; values read while parsing is in progress might
+ * not reflect the same instant.
+ */
+public final class ParseMetrics implements ParseListener {
+    private final LongAdder mParseCount = new LongAdder();
+    private final LongAdder mFailureCount = new LongAdder();
+    private final LongAdder mTokenCount = new LongAdder();
+    private final LongAdder mTotalNanos = new LongAdder();
+    private final LongAccumulator mMaxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder mUnknownSwitchCount = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> mAccessCounts = new ConcurrentHashMap<String, LongAdder>();
+
+    @Override
+    public void onParse(final int tokenCount, final long durationNanos, final boolean success) {
+        mParseCount.increment();
+        if (!success) {
+            mFailureCount.increment();
+        }
+        mTokenCount.add(tokenCount);
+        mTotalNanos.add(durationNanos);
+        mMaxNanos.accumulate(durationNanos);
+    }
+
+    @Override
+    public void onUnknownSwitch(final String token) {
+        mUnknownSwitchCount.increment();
+    }
+
+    @Override
+    public void onAccess(final String name) {
+        LongAdder count = mAccessCounts.get(name);
+        if (count == null) {
+            count = mAccessCounts.computeIfAbsent(name, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Returns the number of command lines parsed.
+     */
+    public long getParseCount() {
+        return mParseCount.sum();
+    }
+
+    /**
+     * Returns the number of command lines that were not valid.
+     */
+    public long getFailureCount() {
+        return mFailureCount.sum();
+    }
+
+    /**
+     * Returns the number of tokens read by all the parses.
+     */
+    public long getTokenCount() {
+        return mTokenCount.sum();
+    }
+
+    /**
+     * Returns the time spent parsing, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return mTotalNanos.sum();
+    }
+
+    /**
+     * Returns the time spent by the slowest parse, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return mMaxNanos.get();
+    }
+
+    /**
+     * Returns the number of unknown switches found.
+     */
+    public long getUnknownSwitchCount() {
+        return mUnknownSwitchCount.sum();
+    }
+
+    /**
+     * Returns, for each argument that has been read at least once, the
+     * number of parsed command lines it has been read from. Declared
+     * arguments missing from the map have never been read.
+     * @return a copy of the counts by argument name
+     */
+    public Map<String, Long> getAccessCounts() {
+        final Map<String, Long> counts = new HashMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : mAccessCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    /**
+     * Clears all the counters.
+     */
+    public void reset() {
+        mParseCount.reset();
+        mFailureCount.reset();
+        mTokenCount.reset();
+        mTotalNanos.reset();
+        mMaxNanos.reset();
+        mUnknownSwitchCount.reset();
+        mAccessCounts.clear();
+    }
+}
@@ -0,0 +1,79 @@
+package com.zetapuppis.arguments;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of parsing a single command line: either the
+ * {@link ParsedArguments} or the errors that made parsing fail.
+ * <p>
+ * Results are returned by {@link ParserSchema#tryParse(String[])} and by
+ * the batch methods of {@link ParserSchema}, where an invalid command line
+ * shouldn't prevent the others from being parsed. No exception is created
+ * for a failed parse unless {@link #getError()} is called.
+ * Instances are immutable.
+ *
+ * @see ParserSchema#parseAll(java.util.Collection)
+ */
+public final class ParseResult {
+    private final ParsedArguments mArguments;
+    private final List<ParseError> mErrors;
+    // created on demand from the first error
+    private CmdLineException mError = null;
+
+    private ParseResult(final ParsedArguments arguments, final List<ParseError> errors) {
+        mArguments = arguments;
+        mErrors = errors;
+    }
+
+    /* package */ static ParseResult success(final ParsedArguments arguments) {
+        return new ParseResult(arguments, Collections.<ParseError>emptyList());
+    }
+
+    /* package */ static ParseResult failure(final List<ParseError> errors) {
+        return new ParseResult(null, Collections.unmodifiableList(errors));
+    }
+
+    /**
+     * Checks whether the command line has been parsed successfully.
+     * @return true if parsing succeeded or false otherwise
+     */
+    public boolean isSuccess() {
+        return mErrors.isEmpty();
+    }
+
+    /**
+     * Returns the parsed arguments.
+     * @return the {@link ParsedArguments} of the command line
+     * @throws IllegalStateException if parsing failed
+     */
+    public ParsedArguments getArguments() {
+        if (!isSuccess()) {
+            throw new IllegalStateException("parsing failed: " + mErrors.get(0).getMessage(), getError());
+        }
+        return mArguments;
+    }
+
+    /**
+     * Returns all the errors found in the command line, in the order they
+     * have been found: errors in the arguments first, followed by missing
+     * positional keywords, values and required switches.
+     * @return a read-only list of errors, empty if parsing succeeded
+     */
+    public List<ParseError> getErrors() {
+        return mErrors;
+    }
+
+    /**
+     * Returns the error that made parsing fail, the same exception that
+     * {@link ParserSchema#parse(String[])} would have thrown.
+     * @return the exception for the first error or null if parsing succeeded
+     * @see ParseError#toException()
+     */
+    public synchronized CmdLineException getError() {
+        if (mError == null && !isSuccess()) {
+            mError = mErrors.get(0).toException();
+        }
+        return mError;
+    }
+}
@@ -0,0 +1,389 @@
+package com.zetapuppis.arguments;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Incremental parsing engine shared by {@link ParserSchema} and
+ * {@link SwitchParser}.
+ * <p>
+ * Tokens are pushed one at a time through {@link #accept(String)} and
+ * stored straight into the target {@link ParsedArguments}: the first tokens
+ * fill the positional keywords (stored in the first slots), the following
+ * ones are parsed as switches. If the schema has a variadic positional
+ * keyword, the first token that is not a switch (or <code>--</code>)
+ * starts it and all the following tokens are its values. Once all the
+ * tokens have been pushed,
+ * {@link #finishPositionals()} and {@link #finishSwitches()} check that
+ * nothing is missing.
+ * <p>
+ * A session is meant to be used by a single thread, and can be
+ * {@link #reset()} to parse again into the same {@link ParsedArguments}.
+ * <p>
+ * By default the first error stops parsing with an exception; sessions
+ * given an error list record every error as a {@link ParseError} instead,
+ * skip the offending token and never throw.
+ */
+/* package */ final class ParseSession implements TokenConsumer<SwitchArgumentException> {
+    private final SwitchIndex mSwitchIndex;
+    private final int mPositionalCount;
+    private final ParsedArguments mParsed;
+    // where errors are collected, null if they are thrown
+    private final List<ParseError> mErrors;
+    // notified of unknown switches, null if there's none
+    private ParseListener mListener = null;
+    // shares the stored values, null if values are stored as they are
+    private ValuePool mValuePool = null;
+
+    private int mTokenCount = 0;
+
+    private int mPositionalsSeen = 0;
+    // slot of a switch still waiting for its value, -1 otherwise
+    private int mPendingSlot = -1;
+    private boolean mPendingRepeatable = false;
+    private String mPendingToken = null;
+    // the command line the current token comes from, null if it doesn't
+    // come from a command line, so that the variadic keyword can be a
+    // range of it
+    private String[] mSource = null;
+    // index in mSource of the token before the first one accepted
+    private int mSourceBase = 0;
+    // whether the following tokens belong to the variadic keyword
+    private boolean mInRest = false;
+    // whether the variadic keyword took all of the source
+    private boolean mRestComplete = false;
+    // receives the values that follow the positional keywords instead of
+    // the variadic keyword, null if they are stored
+    private Consumer<String> mValueConsumer = null;
+
+    /**
+     * Creates a new session.
+     * @param switchIndex switches to recognize
+     * @param positionalCount number of positional keywords, stored in the
+     *                        first slots of {@code parsed}
+     * @param parsed where the parsed arguments will be stored, switches are
+     *               stored right after the positional keywords in the same
+     *               order of {@link SwitchIndex#getSlotTable()}
+     */
+    /* package */ ParseSession(final SwitchIndex switchIndex,
+                               final int positionalCount,
+                               final ParsedArguments parsed) {
+        this(switchIndex, positionalCount, parsed, null);
+    }
+
+    /**
+     * Creates a new session.
+     * @param switchIndex switches to recognize
+     * @param positionalCount number of positional keywords
+     * @param parsed where the parsed arguments will be stored
+     * @param errors where errors are added instead of being thrown, or null
+     *               to throw them
+     */
+    /* package */ ParseSession(final SwitchIndex switchIndex,
+                               final int positionalCount,
+                               final ParsedArguments parsed,
+                               final List<ParseError> errors) {
+        mSwitchIndex = switchIndex;
+        mPositionalCount = positionalCount;
+        mParsed = parsed;
+        mErrors = errors;
+    }
+
+    /**
+     * Prepares this session for a new parse. The target
+     * {@link ParsedArguments} must be reset separately.
+     */
+    /* package */ void reset() {
+        mTokenCount = 0;
+        mPositionalsSeen = 0;
+        mPendingSlot = -1;
+        mPendingRepeatable = false;
+        mPendingToken = null;
+        mSource = null;
+        mSourceBase = 0;
+        mInRest = false;
+        mRestComplete = false;
+        mValueConsumer = null;
+    }
+
+    /**
+     * Declares that the following tokens will be accepted in order from the
+     * given command line, so that the values of the variadic positional
+     * keyword can be stored without copying them.
+     * @param args the command line being parsed, or null if the following
+     *             tokens don't come from a command line
+     * @param index index of the next token
+     */
+    /* package */ void setSource(final String[] args, final int index) {
+        mSource = args;
+        mSourceBase = index - mTokenCount - 1;
+    }
+
+    /**
+     * Hands the following values to the given consumer: values that come
+     * after the positional keywords are neither stored nor rejected, and
+     * switches are still recognized until <code>--</code>.
+     * @param values receives the values, or null to store them
+     */
+    /* package */ void setValueConsumer(final Consumer<String> values) {
+        mValueConsumer = values;
+    }
+
+    /**
+     * Checks whether the variadic positional keyword took the rest of the
+     * source: the remaining tokens of the source have already been read and
+     * must not be accepted, while tokens from other sources still can.
+     * @return true if the source has been read to its end
+     */
+    /* package */ boolean isComplete() {
+        return mRestComplete;
+    }
+
+    /**
+     * Sets the listener notified of unknown switches.
+     * @param listener a {@link ParseListener} or null
+     */
+    /* package */ void setListener(final ParseListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Sets the pool the values are interned into before being stored.
+     * @param valuePool a {@link ValuePool} or null
+     */
+    /* package */ void setValuePool(final ValuePool valuePool) {
+        mValuePool = valuePool;
+    }
+
+    /**
+     * Returns the number of tokens accepted since this session has been
+     * created or reset.
+     */
+    /* package */ int getTokenCount() {
+        return mTokenCount;
+    }
+
+    /**
+     * Checks whether this session recognizes the given arguments.
+     * @param switchIndex switches to recognize
+     * @param positionalCount number of positional keywords
+     * @return true if this session has been created for the same arguments
+     */
+    /* package */ boolean isFor(final SwitchIndex switchIndex, final int positionalCount) {
+        return mSwitchIndex == switchIndex && mPositionalCount == positionalCount
+                && mErrors == null;
+    }
+
+    @Override
+    public void accept(final String token) throws SwitchArgumentException {
+        mTokenCount++;
+        if (mInRest) {
+            addRest(token);
+            return;
+        }
+        if (mPendingSlot >= 0) {
+            // argument has a value right next to it
+            store(mPendingSlot, mPendingRepeatable, token);
+            mPendingSlot = -1;
+            mPendingToken = null;
+            return;
+        }
+
+        if (mPositionalsSeen < mPositionalCount) {
+            mParsed.setSlot(mPositionalsSeen++, intern(token));
+            return;
+        }
+
+        if (token.equals(SwitchIndex.OPT_LONG_PREFIX) && (mParsed.getRestName() != null || mValueConsumer != null)) {
+            // everything after -- is variadic, even if it looks like a switch
+            startRest(token, false);
+            return;
+        }
+
+        // a single pass over the token classifies it
+        final long match = mSwitchIndex.match(token);
+
+        if (match == SwitchIndex.AMBIGUOUS) {
+            fail(ParseError.Code.AMBIGUOUS_SWITCH, token);
+            return;
+        }
+        if (match == SwitchIndex.NO_MATCH) {
+            if (acceptCluster(token)) {
+                return;
+            }
+            if (mValueConsumer != null && !token.startsWith(SwitchIndex.OPT_SHORT_PREFIX)) {
+                mValueConsumer.accept(token);
+                return;
+            }
+            if (mParsed.getRestName() != null && !token.startsWith(SwitchIndex.OPT_SHORT_PREFIX)) {
+                startRest(token, true);
+                return;
+            }
+            fail(token.startsWith(SwitchIndex.OPT_SHORT_PREFIX)
+                    ? ParseError.Code.UNKNOWN_SWITCH : ParseError.Code.UNEXPECTED_ARGUMENT, token);
+            return;
+        }
+
+        final SwitchArgument switchArgument = mSwitchIndex.switchOf(match);
+        final int slot = mPositionalCount + mSwitchIndex.slotOf(match);
+        final int valueOffset = SwitchIndex.valueOffsetOf(match);
+
+        if (!switchArgument.hasValue()) {
+            if (valueOffset >= 0) {
+                fail(ParseError.Code.UNEXPECTED_VALUE, token);
+                return;
+            }
+            mParsed.setFlag(slot);
+        } else if (valueOffset >= 0) {
+            // value attached to the switch (--option=value)
+            store(slot, switchArgument.isRepeatable(), token.substring(valueOffset));
+        } else {
+            mPendingSlot = slot;
+            mPendingRepeatable = switchArgument.isRepeatable();
+            mPendingToken = token;
+        }
+    }
+
+    /**
+     * Reads a token made of single character short switches, such as
+     * <code>-abc</code> or <code>-vvv</code>. The first switch that takes
+     * a value gets the rest of the token (<code>-j8</code>), or the next
+     * token if it comes last. Characters are decoded in place, nothing is
+     * stored unless all of them are known switches.
+     * @param token a token that doesn't match any switch
+     * @return true if the token has been read or false if it isn't a cluster
+     *         of known switches
+     */
+    private boolean acceptCluster(final String token) {
+        final int length = token.length();
+        if (length < 3 || token.charAt(0) != '-' || token.charAt(1) == '-') {
+            return false;
+        }
+
+        // index right after the switch that takes a value, if any
+        int end = length;
+        for (int i = 1; i < end; i++) {
+            final int id = mSwitchIndex.shortSwitchOf(token.charAt(i));
+            if (id < 0) {
+                return false;
+            }
+            if (mSwitchIndex.getSwitches()[id].hasValue()) {
+                end = i + 1;
+            }
+        }
+
+        for (int i = 1; i < end; i++) {
+            final int id = mSwitchIndex.shortSwitchOf(token.charAt(i));
+            final SwitchArgument switchArgument = mSwitchIndex.getSwitches()[id];
+            final int slot = mPositionalCount + mSwitchIndex.getSlot(id);
+            if (!switchArgument.hasValue()) {
+                mParsed.setFlag(slot);
+            } else if (end < length) {
+                store(slot, switchArgument.isRepeatable(), token.substring(end));
+            } else {
+                mPendingSlot = slot;
+                mPendingRepeatable = switchArgument.isRepeatable();
+                mPendingToken = token;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts the variadic positional keyword, which takes all the following
+     * tokens. If the current token comes from the source, the keyword is a
+     * range of it and the rest of the source is skipped.
+     * @param token the current token
+     * @param included whether the current token is the first value
+     */
+    private void startRest(final String token, final boolean included) {
+        mInRest = true;
+        final int index = mSourceBase + mTokenCount;
+        if (mSource != null && index < mSource.length && mSource[index] == token) {
+            mParsed.setRest(mSource, included ? index : index + 1, mSource.length);
+            mTokenCount += mSource.length - index - 1;
+            mRestComplete = true;
+        } else if (included) {
+            addRest(token);
+        }
+    }
+
+    private void addRest(final String token) {
+        if (mValueConsumer != null) {
+            mValueConsumer.accept(token);
+        } else {
+            mParsed.addRest(token);
+        }
+    }
+
+    private void fail(final ParseError.Code code, final String argument) throws SwitchArgumentException {
+        if (code == ParseError.Code.UNKNOWN_SWITCH && mListener != null) {
+            mListener.onUnknownSwitch(argument);
+        }
+        if (mErrors == null) {
+            throw new SwitchArgumentException(code.format(argument));
+        }
+        mErrors.add(new ParseError(code, argument));
+    }
+
+    private void store(final int slot, final boolean repeatable, final String value) {
+        if (repeatable) {
+            mParsed.addSlot(slot, intern(value));
+        } else {
+            mParsed.setSlot(slot, intern(value));
+        }
+    }
+
+    private String intern(final String value) {
+        return mValuePool == null ? value : mValuePool.intern(value);
+    }
+
+    /**
+     * Stores the given values for the arguments that haven't been read.
+     * @param fallbacks values by slot (null for the arguments without a
+     *                  fallback value), or null if there are no values
+     */
+    /* package */ void applyFallbacks(final String[] fallbacks) {
+        if (fallbacks == null) {
+            return;
+        }
+        for (int slot = mPositionalCount; slot < fallbacks.length; slot++) {
+            if (fallbacks[slot] != null && !mParsed.hasSlot(slot)) {
+                mParsed.setSlot(slot, fallbacks[slot]);
+            }
+        }
+    }
+
+    /**
+     * Checks that all the positional keywords have been read.
+     * @throws PositionalArgumentException if some positional keyword is missing
+     */
+    /* package */ void finishPositionals() throws PositionalArgumentException {
+        if (mPositionalsSeen < mPositionalCount) {
+            final String name = mParsed.getSlotTable().nameOf(mPositionalsSeen);
+            if (mErrors == null) {
+                throw new PositionalArgumentException(ParseError.Code.MISSING_POSITIONAL.format(name));
+            }
+            mErrors.add(new ParseError(ParseError.Code.MISSING_POSITIONAL, name));
+        }
+    }
+
+    /**
+     * Checks that the last switch received its value and that all the
+     * required switches have been read.
+     * @throws SwitchArgumentException if a value or a required switch is missing
+     */
+    /* package */ void finishSwitches() throws SwitchArgumentException {
+        if (mPendingSlot >= 0) {
+            fail(ParseError.Code.MISSING_VALUE, mPendingToken);
+        }
+
+        final SwitchArgument[] switches = mSwitchIndex.getSwitches();
+        for (int id = 0; id < switches.length; id++) {
+            final SwitchArgument switchArgument = switches[id];
+            if (switchArgument.isRequired() && !mParsed.hasSlot(mPositionalCount + mSwitchIndex.getSlot(id))) {
+                fail(ParseError.Code.MISSING_REQUIRED, switchArgument.getName());
+            }
+        }
+    }
+}
@@ -1,26 +1,412 @@
 package com.zetapuppis.arguments;
 
 import java.io.File;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * Holder of parsed arguments.
  *
  * <p>Provides functions for converting items to the required datatype
  * as well as raw access to the stored arguments.
+ *
+ * <p>Arguments declared in a {@link ParserSchema} are kept in a flat array,
+ * indexed by the slot the schema assigned to them, and can be read either
+ * by name or through an {@link ArgumentKey} without any name lookup.
+ * Switches without a value only take a bit each, so that checking them
+ * with {@link #has(String)} is a bit test, and {@link #getCount(String)}
+ * tells how many times they have been given (<code>-vvv</code>).
+ *
+ * <p>Typed values are converted (and validated) only the first time they
+ * are read, subsequent reads of the same argument as the same type reuse
+ * the converted value. This includes the file-system checks performed by
+ * {@link #getExistingFile(String)} and {@link #getNewFile(String)}, unless
+ * {@link #setRevalidateFiles(boolean)} is enabled.
+ *
+ * <p>Repeatable switches keep all their values in a single growable array,
+ * readable through {@link #getStrings(String)}, {@link #getInts(String)}
+ * and {@link #getLongs(String)}, while the other getters return the last
+ * value.
+ *
+ * <p>The values of the variadic positional keyword, if the schema has one
+ * (see {@link ParserSchema.Builder#addRest(String)}), are returned by
+ * {@link #getRest()} as a view over the parsed command line, which is not
+ * copied. Like repeatable switches, the other getters and iteration read
+ * its last value.
+ *
+ * <p>Instances created through {@link ParserSchema#newArguments()} can be
+ * {@link #reset()} and filled again by
+ * {@link ParserSchema#parseInto(String[], int, ParsedArguments)}, reusing
+ * all of their internal storage across parses.
+ *
+ * <p>Instances are meant to be filled and read by a single thread,
+ * {@link #snapshot()} returns an immutable copy that can be shared between
+ * threads.
  */
 public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
-    final Map<String, String> mOpts = new HashMap<String, String>();
+    private final SlotTable mSlotTable;
+    // slots of the schema that created these arguments, the same as
+    // mSlotTable unless these are a snapshot
+    private final SlotTable mKeyTable;
+    private final String[] mValues;
+    // switches without a value, one bit per slot
+    private final long[] mFlags;
+    // further occurrences of each flag, created on demand
+    private int[] mFlagCounts = null;
+    // arguments that don't have a slot, created on demand
+    private Map<String, String> mOpts = null;
+    // memoized typed values
+    private final Conversion[] mConversions;
+    private Map<String, Conversion> mOptsConversions = null;
+    private boolean mRevalidateFiles = false;
+    // all the values of repeatable switches, created on demand
+    private String[][] mLists = null;
+    private int[] mListSizes = null;
+    // name of the variadic positional keyword, null if there's none
+    private String mRestName = null;
+    // values of the variadic positional keyword, mRest[mRestFrom..mRestTo),
+    // either a range of the parsed command line or a buffer of their own
+    private String[] mRest = null;
+    private int mRestFrom = 0;
+    private int mRestTo = 0;
+    private boolean mRestBuffered = false;
+    // kept across resets by the schema that fills these arguments
+    private ParseSession mSession = null;
+    // notified of the first read of each slot, null if there's none
+    private ParseListener mListener = null;
+    private boolean[] mAccessed = null;
+
+    /* package */ ParsedArguments() {
+        this(SlotTable.EMPTY);
+    }
+
+    /* package */ ParsedArguments(final SlotTable slotTable) {
+        this(slotTable, slotTable, new String[slotTable.size()], new long[flagWords(slotTable.size())],
+                new Conversion[slotTable.size()]);
+    }
+
+    private ParsedArguments(final SlotTable slotTable,
+                            final SlotTable keyTable,
+                            final String[] values,
+                            final long[] flags,
+                            final Conversion[] conversions) {
+        mSlotTable = slotTable;
+        mKeyTable = keyTable;
+        mValues = values;
+        mFlags = flags;
+        mConversions = conversions;
+    }
+
+    private static int flagWords(final int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    /**
+     * Returns an immutable copy of these arguments.
+     * <p>
+     * The copy holds its own compact storage and is fully initialized when
+     * this method returns, its state is only reachable through final fields
+     * so that it can be shared between threads without any synchronization,
+     * even if it is not safely published. Values already converted by the
+     * typed getters are carried over, further conversions are memoized as
+     * well (racing threads might convert the same value more than once).
+     * <p>
+     * Changing these arguments afterwards doesn't affect the copy, while
+     * {@link #set(String, String)}, {@link #reset()} and
+     * {@link #setRevalidateFiles(boolean)} on the copy throw an
+     * {@link UnsupportedOperationException}.
+     * @return an immutable copy of these arguments, or these same arguments
+     *         if they are already immutable
+     */
+    public ParsedArguments snapshot() {
+        final int optsCount = mOpts == null ? 0 : mOpts.size();
+        final int size = mValues.length + optsCount;
+        final String[] values = Arrays.copyOf(mValues, size);
+        final long[] flags = Arrays.copyOf(mFlags, flagWords(size));
+        final Conversion[] conversions = Arrays.copyOf(mConversions, size);
 
-    /* package */ ParsedArguments() {}
+        SlotTable slotTable = mSlotTable;
+        if (optsCount > 0) {
+            // arguments without a slot get their own slots, after the others
+            final String[] names = new String[size];
+            for (int slot = 0; slot < mValues.length; slot++) {
+                names[slot] = mSlotTable.nameOf(slot);
+            }
+            int slot = mValues.length;
+            for (Map.Entry<String, String> opt : mOpts.entrySet()) {
+                names[slot] = opt.getKey();
+                values[slot] = opt.getValue();
+                if (mOptsConversions != null) {
+                    conversions[slot] = mOptsConversions.get(opt.getKey());
+                }
+                slot++;
+            }
+            slotTable = new SlotTable(names);
+        }
+
+        String[][] lists = null;
+        if (mListSizes != null) {
+            lists = new String[size][];
+            for (int slot = 0; slot < mListSizes.length; slot++) {
+                if (mListSizes[slot] > 0) {
+                    lists[slot] = Arrays.copyOf(mLists[slot], mListSizes[slot]);
+                }
+            }
+        }
+
+        if (mRevalidateFiles) {
+            // these would have to be checked again anyway
+            for (int slot = 0; slot < size; slot++) {
+                if (conversions[slot] != null && isFileCheck(conversions[slot].mConverter)) {
+                    conversions[slot] = null;
+                }
+            }
+        }
+
+        final int[] flagCounts = mFlagCounts == null ? null : Arrays.copyOf(mFlagCounts, size);
+        final List<String> rest = getRest();
+        return new Snapshot(slotTable, mKeyTable, values, flags, conversions, lists, flagCounts,
+                getRestName(), rest.toArray(new String[rest.size()]), mRevalidateFiles);
+    }
+
+    /**
+     * Removes all the arguments, keeping the internal storage so that
+     * these arguments can be filled again without allocating.
+     * <p>
+     * Lists previously returned by {@link #getStrings(String)} are views
+     * over the internal storage and must not be used after a reset.
+     */
+    public void reset() {
+        Arrays.fill(mValues, null);
+        Arrays.fill(mFlags, 0);
+        if (mFlagCounts != null) {
+            Arrays.fill(mFlagCounts, 0);
+        }
+        if (mOpts != null) {
+            mOpts.clear();
+        }
+        Arrays.fill(mConversions, null);
+        if (mAccessed != null) {
+            Arrays.fill(mAccessed, false);
+        }
+        if (mOptsConversions != null) {
+            mOptsConversions.clear();
+        }
+        if (mListSizes != null) {
+            for (int slot = 0; slot < mListSizes.length; slot++) {
+                if (mListSizes[slot] > 0) {
+                    Arrays.fill(mLists[slot], 0, mListSizes[slot], null);
+                    mListSizes[slot] = 0;
+                }
+            }
+        }
+        if (mRestBuffered) {
+            Arrays.fill(mRest, 0, mRestTo, null);
+        } else {
+            mRest = null;
+        }
+        mRestFrom = 0;
+        mRestTo = 0;
+    }
+
+    /**
+     * Returns the slots these arguments have been created for.
+     * @return the {@link SlotTable} of these arguments
+     */
+    /* package */ SlotTable getSlotTable() {
+        return mSlotTable;
+    }
+
+    /**
+     * Returns a session that stores tokens into these arguments, reusing
+     * the one created by a previous call for the same switches.
+     * @param switchIndex switches to recognize
+     * @param positionalCount number of positional keywords
+     * @return a {@link ParseSession} ready for a new parse
+     */
+    /* package */ ParseSession getSession(final SwitchIndex switchIndex, final int positionalCount) {
+        if (mSession == null || !mSession.isFor(switchIndex, positionalCount)) {
+            mSession = new ParseSession(switchIndex, positionalCount, this);
+        } else {
+            mSession.reset();
+        }
+        return mSession;
+    }
+
+    /**
+     * Declares the variadic positional keyword of the schema.
+     * @param name name of the keyword, or null if there's none
+     */
+    /* package */ void setRestName(final String name) {
+        mRestName = name;
+    }
+
+    /**
+     * Returns the name of the variadic positional keyword.
+     * @return the name of the keyword, or null if there's none
+     */
+    /* package */ String getRestName() {
+        return mRestName;
+    }
+
+    /**
+     * Stores a range of the parsed command line as the values of the
+     * variadic positional keyword, without copying it.
+     * @param args the command line being parsed
+     * @param from index of the first value
+     * @param to index after the last value
+     */
+    /* package */ void setRest(final String[] args, final int from, final int to) {
+        mRest = args;
+        mRestFrom = from;
+        mRestTo = to;
+        mRestBuffered = false;
+    }
+
+    /**
+     * Adds a value to the variadic positional keyword, for values that
+     * don't come straight from the command line (such as argument files).
+     * @param value the value to add
+     */
+    /* package */ void addRest(final String value) {
+        if (!mRestBuffered) {
+            mRest = new String[8];
+            mRestFrom = 0;
+            mRestTo = 0;
+            mRestBuffered = true;
+        } else if (mRestTo == mRest.length) {
+            mRest = Arrays.copyOf(mRest, mRest.length * 2);
+        }
+        mRest[mRestTo++] = value;
+    }
+
+    /**
+     * Sets the listener notified the first time each argument is read.
+     * @param listener a {@link ParseListener} or null
+     */
+    /* package */ void setListener(final ParseListener listener) {
+        mListener = listener;
+        mAccessed = listener == null ? null : new boolean[mValues.length];
+    }
+
+    // called before reading the given slot on behalf of a getter
+    private void read(final int slot) {
+        if (mListener != null && !mAccessed[slot]) {
+            mAccessed[slot] = true;
+            mListener.onAccess(mSlotTable.nameOf(slot));
+        }
+        resolve(slot);
+    }
+
+    /**
+     * Makes sure that the argument stored at the given slot is up to date
+     * before being read. Arguments that are filled lazily override this.
+     * @param slot a valid slot
+     */
+    /* package */ void resolve(final int slot) {
+    }
 
     private String get(final String name) throws ArgumentTypeException {
-        if (!this.has(name)) {
+        final int slot = mSlotTable.slotOf(name);
+        if (slot >= 0) {
+            read(slot);
+        }
+        if (slot >= 0 && hasSlot(slot)) {
+            return valueAt(slot);
+        }
+        if (slot < 0 && mOpts != null && mOpts.containsKey(name)) {
+            return mOpts.get(name);
+        }
+        if (slot < 0 && name.equals(getRestName())) {
+            final String value = lastRestValue();
+            if (value != null) {
+                return value;
+            }
+        }
+        throw new ArgumentTypeException(String.format("%s is not a valid argument", name));
+    }
+
+    // the variadic keyword reads as its last value, like repeatable switches
+    private String lastRestValue() {
+        final List<String> rest = getRest();
+        return rest.isEmpty() ? null : rest.get(rest.size() - 1);
+    }
+
+    private <T> T get(final String name, final ArgumentConverter<T> converter) throws ArgumentTypeException {
+        final int slot = mSlotTable.slotOf(name);
+        if (slot >= 0) {
+            return convertSlot(slot, name, converter);
+        }
+
+        final String value = get(name);
+        if (name.equals(getRestName())) {
+            // not memoized, the variadic keyword's values aren't stored
+            return converter.convert(name, value);
+        }
+        if (mOptsConversions == null) {
+            mOptsConversions = new HashMap<String, Conversion>();
+        }
+        final Conversion conversion = mOptsConversions.get(name);
+        if (conversion != null && isReusable(conversion, converter)) {
+            return conversion.<T>getValue();
+        }
+        final T converted = converter.convert(name, value);
+        mOptsConversions.put(name, new Conversion(converter, converted));
+        return converted;
+    }
+
+    private <T> T convertSlot(final int slot,
+                              final String name,
+                              final ArgumentConverter<T> converter) throws ArgumentTypeException {
+        read(slot);
+        final String value = valueAt(slot);
+        if (value == null) {
             throw new ArgumentTypeException(String.format("%s is not a valid argument", name));
         }
-        return mOpts.get(name);
+
+        final Conversion conversion = mConversions[slot];
+        if (conversion != null && isReusable(conversion, converter)) {
+            return conversion.<T>getValue();
+        }
+        final T converted = converter.convert(name, value);
+        mConversions[slot] = new Conversion(converter, converted);
+        return converted;
+    }
+
+    private boolean isReusable(final Conversion conversion, final ArgumentConverter<?> converter) {
+        if (conversion.mConverter != converter) {
+            return false;
+        }
+        return !isRevalidatingFiles() || !isFileCheck(converter);
+    }
+
+    private static boolean isFileCheck(final ArgumentConverter<?> converter) {
+        return converter == Converters.EXISTING_FILE || converter == Converters.NEW_FILE;
+    }
+
+    /* package */ boolean isRevalidatingFiles() {
+        return mRevalidateFiles;
+    }
+
+    /**
+     * Forces the file-system checks of {@link #getExistingFile(String)} and
+     * {@link #getNewFile(String)} to be performed on every call, rather than
+     * only the first time a file is read.
+     * @param revalidate true to check the file-system on every call
+     */
+    public void setRevalidateFiles(final boolean revalidate) {
+        mRevalidateFiles = revalidate;
     }
 
     /**
@@ -29,12 +415,115 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
      * @return true if the argument has been parsed or false otherwise
      */
     public boolean has(final String name) {
-        return mOpts.containsKey(name);
+        final int slot = mSlotTable.slotOf(name);
+        if (slot >= 0) {
+            read(slot);
+            return hasSlot(slot);
+        }
+        if (name.equals(getRestName())) {
+            return !getRest().isEmpty();
+        }
+        return mOpts != null && mOpts.containsKey(name);
+    }
+
+    /**
+     * Checks if the argument referred by the given key has been parsed.
+     * @param key an {@link ArgumentKey} created by the schema that produced
+     *            these arguments
+     * @return true if the argument has been parsed or false otherwise
+     * @throws IllegalArgumentException if the key belongs to a different schema
+     */
+    public boolean has(final ArgumentKey<?> key) {
+        final int slot = slotOf(key);
+        read(slot);
+        return hasSlot(slot);
+    }
+
+    /**
+     * Returns the value of the argument referred by the given key, converted
+     * to the key's type.
+     * @param key an {@link ArgumentKey} created by the schema that produced
+     *            these arguments
+     * @param <T> type of the argument's value
+     * @return the converted value
+     * @throws ArgumentTypeException if the argument is missing or cannot be
+     *         converted
+     * @throws IllegalArgumentException if the key belongs to a different schema
+     */
+    public <T> T get(final ArgumentKey<T> key) throws ArgumentTypeException {
+        return convertSlot(slotOf(key), key.getName(), key.getConverter());
+    }
+
+    /**
+     * Returns the value of the argument referred by the given key, converted
+     * to the key's type.
+     * @param key an {@link ArgumentKey} created by the schema that produced
+     *            these arguments
+     * @param defaultValue default value in case the argument is missing
+     * @param <T> type of the argument's value
+     * @return the converted value
+     * @throws ArgumentTypeException if the argument cannot be converted
+     * @throws IllegalArgumentException if the key belongs to a different schema
+     */
+    public <T> T get(final ArgumentKey<T> key, final T defaultValue) throws ArgumentTypeException {
+        if (has(key)) {
+            return get(key);
+        }
+        return defaultValue;
+    }
+
+    private int slotOf(final ArgumentKey<?> key) {
+        if (key.getSlotTable() != mKeyTable) {
+            throw new IllegalArgumentException(
+                    String.format("key %s doesn't belong to the schema of these arguments", key.getName()));
+        }
+        return key.getSlot();
     }
 
     @Override
     public Iterator<Map.Entry<String, String>> iterator() {
-        return mOpts.entrySet().iterator();
+        final Iterator<Map.Entry<String, String>> opts = mOpts == null ? null : mOpts.entrySet().iterator();
+        final String restValue = lastRestValue();
+
+        return new Iterator<Map.Entry<String, String>>() {
+            private int mSlot = nextSlot(0);
+            private boolean mRestPending = restValue != null;
+
+            private int nextSlot(int slot) {
+                while (slot < mValues.length && !hasSlot(slot)) {
+                    slot++;
+                }
+                return slot;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return mSlot < mValues.length || mRestPending || (opts != null && opts.hasNext());
+            }
+
+            @Override
+            public Map.Entry<String, String> next() {
+                if (mSlot < mValues.length) {
+                    final Map.Entry<String, String> entry = new AbstractMap.SimpleImmutableEntry<String, String>(
+                            mSlotTable.nameOf(mSlot), valueAt(mSlot));
+                    mSlot = nextSlot(mSlot + 1);
+                    return entry;
+                }
+                if (mRestPending) {
+                    mRestPending = false;
+                    return new AbstractMap.SimpleImmutableEntry<String, String>(getRestName(), restValue);
+                }
+                if (opts == null) {
+                    throw new NoSuchElementException();
+                }
+                return opts.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
     /**
@@ -51,7 +540,296 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
      * @param value argument's value
      */
     public void set(final String name, final String value) {
+        final int slot = mSlotTable.slotOf(name);
+        if (slot >= 0) {
+            setSlot(slot, value);
+            return;
+        }
+        if (mOpts == null) {
+            mOpts = new HashMap<String, String>();
+        }
         mOpts.put(name, value);
+        if (mOptsConversions != null) {
+            mOptsConversions.remove(name);
+        }
+    }
+
+    /**
+     * Set the value of the argument stored at the given slot.
+     * @param slot a valid slot
+     * @param value argument's value
+     */
+    /* package */ void setSlot(final int slot, final String value) {
+        mValues[slot] = value;
+        mFlags[slot >>> 6] &= ~(1L << slot);
+        if (mFlagCounts != null) {
+            mFlagCounts[slot] = 0;
+        }
+        mConversions[slot] = null;
+        if (mListSizes != null) {
+            mListSizes[slot] = 0;
+        }
+    }
+
+    /**
+     * Appends a value to the argument stored at the given slot, keeping the
+     * previous values.
+     * @param slot a valid slot
+     * @param value argument's value
+     */
+    /* package */ void addSlot(final int slot, final String value) {
+        if (mLists == null) {
+            mLists = new String[mValues.length][];
+            mListSizes = new int[mValues.length];
+        }
+
+        int size = mListSizes[slot];
+        if (size == 0 && mValues[slot] != null) {
+            // value set before the argument was repeated
+            appendToList(slot, 0, mValues[slot]);
+            size = 1;
+        }
+        appendToList(slot, size, value);
+
+        mValues[slot] = value;
+        mConversions[slot] = null;
+    }
+
+    private void appendToList(final int slot, final int size, final String value) {
+        String[] list = mLists[slot];
+        if (list == null) {
+            list = new String[4];
+            mLists[slot] = list;
+        } else if (size == list.length) {
+            list = new String[size * 2];
+            System.arraycopy(mLists[slot], 0, list, 0, size);
+            mLists[slot] = list;
+        }
+        list[size] = value;
+        mListSizes[slot] = size + 1;
+    }
+
+    /**
+     * Checks whether the argument stored at the given slot has been parsed.
+     * @param slot a valid slot
+     * @return true if the argument has been parsed or false otherwise
+     */
+    /* package */ boolean hasSlot(final int slot) {
+        return mValues[slot] != null || isFlag(slot);
+    }
+
+    /**
+     * Marks the switch without a value stored at the given slot as present,
+     * counting how many times it has been given.
+     * @param slot a valid slot
+     */
+    /* package */ void setFlag(final int slot) {
+        final int word = slot >>> 6;
+        final long bit = 1L << slot;
+        if ((mFlags[word] & bit) == 0) {
+            mFlags[word] |= bit;
+            return;
+        }
+        if (mFlagCounts == null) {
+            mFlagCounts = new int[mValues.length];
+        }
+        mFlagCounts[slot]++;
+    }
+
+    private boolean isFlag(final int slot) {
+        return (mFlags[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    // the value stored at the given slot, flags read as empty strings
+    private String valueAt(final int slot) {
+        final String value = mValues[slot];
+        return (value != null || !isFlag(slot)) ? value : "";
+    }
+
+    /**
+     * Returns how many times the given argument has been given.
+     * <p>
+     * Switches without a value count each of their occurrences, so that
+     * <code>-vvv</code> or <code>-v -v -v</code> count as 3, repeatable
+     * switches count their values and other arguments count as 1.
+     * @param name argument's name
+     * @return the number of occurrences, 0 if the argument is missing
+     */
+    public int getCount(final String name) {
+        final int slot = mSlotTable.slotOf(name);
+        if (slot < 0) {
+            if (name.equals(getRestName())) {
+                return getRest().size();
+            }
+            return mOpts != null && mOpts.containsKey(name) ? 1 : 0;
+        }
+        read(slot);
+        if (isFlag(slot)) {
+            return 1 + (mFlagCounts == null ? 0 : mFlagCounts[slot]);
+        }
+        if (mListSizes != null && mListSizes[slot] > 0) {
+            return mListSizes[slot];
+        }
+        return mValues[slot] != null ? 1 : 0;
+    }
+
+    /**
+     * Returns all the values of the given argument.
+     * <p>
+     * Repeatable switches and the variadic positional keyword return every
+     * value in the order they were given, while other arguments return their
+     * only value. The returned list is a read-only view over the stored
+     * values.
+     * @param name argument parameter's name
+     * @return the values of the argument or an empty list if it's missing
+     */
+    public List<String> getStrings(final String name) {
+        final int slot = mSlotTable.slotOf(name);
+        if (slot >= 0) {
+            return stringsAt(slot);
+        }
+        if (name.equals(getRestName())) {
+            return getRest();
+        }
+        if (mOpts == null || !mOpts.containsKey(name)) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(mOpts.get(name));
+    }
+
+    /**
+     * Returns all the values of the argument referred by the given key, see
+     * {@link #getStrings(String)}.
+     * @param key an {@link ArgumentKey} created by the schema that produced
+     *            these arguments
+     * @return the values of the argument or an empty list if it's missing
+     * @throws IllegalArgumentException if the key belongs to a different schema
+     */
+    public List<String> getStrings(final ArgumentKey<?> key) {
+        return stringsAt(slotOf(key));
+    }
+
+    /**
+     * Returns all the values of the argument stored at the given slot.
+     * @param slot a valid slot
+     * @return a read-only view over the values, empty if the argument is
+     *         missing
+     */
+    /* package */ List<String> stringsAt(final int slot) {
+        read(slot);
+        if (mListSizes != null && mListSizes[slot] > 0) {
+            return new ValuesView(mLists[slot], 0, mListSizes[slot]);
+        }
+        if (!hasSlot(slot)) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(valueAt(slot));
+    }
+
+    /**
+     * Returns the values of the variadic positional keyword, see
+     * {@link ParserSchema.Builder#addRest(String)}.
+     * <p>
+     * The returned list is a read-only view over the command line that has
+     * been parsed, nothing is copied: it can be indexed in constant time,
+     * and its {@link List#spliterator() spliterator} splits evenly so that
+     * {@link List#parallelStream()} processes large command lines in
+     * parallel. The command line must not be modified while the view is in
+     * use.
+     * @return the values of the variadic keyword, or an empty list if there
+     *         are none or the schema doesn't have a variadic keyword
+     */
+    public List<String> getRest() {
+        if (mRest == null) {
+            return Collections.emptyList();
+        }
+        return new ValuesView(mRest, mRestFrom, mRestTo);
+    }
+
+    /**
+     * Returns all the values of the given argument converted to integers.
+     * <p>
+     * Values are converted on every call, without boxing them.
+     * @param name argument parameter's name
+     * @return the values of the argument or an empty array if it's missing
+     * @throws ArgumentTypeException if some value cannot be converted to an
+     *         integer
+     * @see #getStrings(String)
+     */
+    public int[] getInts(final String name) throws ArgumentTypeException {
+        return toInts(getStrings(name), name);
+    }
+
+    /**
+     * Returns all the values of the argument referred by the given key
+     * converted to integers, see {@link #getInts(String)}.
+     * @param key an {@link ArgumentKey} created by the schema that produced
+     *            these arguments
+     * @return the values of the argument or an empty array if it's missing
+     * @throws ArgumentTypeException if some value cannot be converted to an
+     *         integer
+     * @throws IllegalArgumentException if the key belongs to a different schema
+     */
+    public int[] getInts(final ArgumentKey<?> key) throws ArgumentTypeException {
+        return toInts(getStrings(key), key.getName());
+    }
+
+    private static int[] toInts(final List<String> values, final String name) throws ArgumentTypeException {
+        final int[] ints = new int[values.size()];
+        for (int i = 0; i < ints.length; i++) {
+            final String value = values.get(i);
+            try {
+                ints[i] = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                throw new ArgumentTypeException(
+                        String.format("cannot convert %s to integer for argument %s",
+                                value, name));
+            }
+        }
+        return ints;
+    }
+
+    /**
+     * Returns all the values of the given argument converted to longs.
+     * <p>
+     * Values are converted on every call, without boxing them.
+     * @param name argument parameter's name
+     * @return the values of the argument or an empty array if it's missing
+     * @throws ArgumentTypeException if some value cannot be converted to a
+     *         long
+     * @see #getStrings(String)
+     */
+    public long[] getLongs(final String name) throws ArgumentTypeException {
+        return toLongs(getStrings(name), name);
+    }
+
+    /**
+     * Returns all the values of the argument referred by the given key
+     * converted to longs, see {@link #getLongs(String)}.
+     * @param key an {@link ArgumentKey} created by the schema that produced
+     *            these arguments
+     * @return the values of the argument or an empty array if it's missing
+     * @throws ArgumentTypeException if some value cannot be converted to a
+     *         long
+     * @throws IllegalArgumentException if the key belongs to a different schema
+     */
+    public long[] getLongs(final ArgumentKey<?> key) throws ArgumentTypeException {
+        return toLongs(getStrings(key), key.getName());
+    }
+
+    private static long[] toLongs(final List<String> values, final String name) throws ArgumentTypeException {
+        final long[] longs = new long[values.size()];
+        for (int i = 0; i < longs.length; i++) {
+            final String value = values.get(i);
+            try {
+                longs[i] = Long.parseLong(value);
+            } catch (NumberFormatException ex) {
+                throw new ArgumentTypeException(
+                        String.format("cannot convert %s to long for argument %s",
+                                value, name));
+            }
+        }
+        return longs;
     }
 
     /**
@@ -64,13 +842,7 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
      *         or it doesn't exist
      */
     public char getChar(final String name) throws ArgumentTypeException {
-        String value = get(name);
-        char[] chars = value.toCharArray();
-        if (chars.length > 1) {
-            throw new ArgumentTypeException(
-                    String.format("value %s for argument %s was not a single character", value, name));
-        }
-        return chars[0];
+        return get(name, Converters.CHARACTER);
     }
 
     /**
@@ -196,17 +968,7 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
      *         or it doesn't exist
      */
     public int getInt(final String name) throws ArgumentTypeException {
-        final String value = get(name);
-
-        Integer ivalue;
-        try {
-            ivalue = Integer.valueOf(value);
-        } catch (NumberFormatException ex) {
-            throw new ArgumentTypeException(
-                    String.format("cannot convert %s to integer for argument %s",
-                            value, name));
-        }
-        return ivalue;
+        return get(name, Converters.INTEGER);
     }
 
     /**
@@ -231,8 +993,7 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
      * @throws ArgumentTypeException if the parameter doesn't exist
      */
     public File getFile(final String name) throws ArgumentTypeException {
-        final String path = get(name);
-        return new File(path);
+        return get(name, Converters.FILE);
     }
 
     /**
@@ -259,12 +1020,7 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
      *         exists already
      */
     public File getNewFile(final String name) throws ArgumentTypeException {
-        final File file = getFile(name);
-
-        if (file.exists()) {
-            throw new ArgumentTypeException(String.format("file %s already exists", file.getPath()));
-        }
-        return file;
+        return get(name, Converters.NEW_FILE);
     }
 
     /**
@@ -284,23 +1040,168 @@ public class ParsedArguments implements Iterable<Map.Entry<String, String>> {
     }
 
     public File getExistingFile(final String name) throws ArgumentTypeException {
-        final File file = getFile(name);
+        return get(name, Converters.EXISTING_FILE);
+    }
 
-        if (!file.exists()) {
-            throw new ArgumentTypeException(String.format("file %s doesn't exists", file.getPath()));
+    public File getExistingFile(final String name, final File defaultValue) throws ArgumentTypeException {
+        if (has(name)) {
+            return getExistingFile(name);
         }
+        return defaultValue;
+    }
+
+    private static final class Conversion {
+        private final ArgumentConverter<?> mConverter;
+        private final Object mValue;
 
-        if (file.isDirectory()) {
-            throw new ArgumentTypeException(String.format("%s is a directory", file.getPath()));
+        private Conversion(final ArgumentConverter<?> converter, final Object value) {
+            mConverter = converter;
+            mValue = value;
         }
 
-        return file;
+        @SuppressWarnings("unchecked")
+        private <T> T getValue() {
+            return (T) mValue;
+        }
     }
 
-    public File getExistingFile(final String name, final File defaultValue) throws ArgumentTypeException {
-        if (has(name)) {
-            return getExistingFile(name);
+    // read-only view over a range of an array
+    private static final class ValuesView extends AbstractList<String> implements RandomAccess {
+        private final String[] mList;
+        private final int mFrom;
+        private final int mSize;
+
+        private ValuesView(final String[] list, final int from, final int to) {
+            mList = list;
+            mFrom = from;
+            mSize = to - from;
+        }
+
+        @Override
+        public String get(final int index) {
+            if (index < 0 || index >= mSize) {
+                throw new IndexOutOfBoundsException(
+                        String.format("index %d out of bounds for %d values", index, mSize));
+            }
+            return mList[mFrom + index];
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        @Override
+        public List<String> subList(final int from, final int to) {
+            if (from < 0 || to > mSize || from > to) {
+                throw new IndexOutOfBoundsException(
+                        String.format("range [%d, %d) out of bounds for %d values", from, to, mSize));
+            }
+            return new ValuesView(mList, mFrom + from, mFrom + to);
+        }
+
+        @Override
+        public Object[] toArray() {
+            return Arrays.copyOfRange(mList, mFrom, mFrom + mSize, Object[].class);
+        }
+
+        @Override
+        public void forEach(final Consumer<? super String> action) {
+            for (int i = mFrom; i < mFrom + mSize; i++) {
+                action.accept(mList[i]);
+            }
+        }
+
+        @Override
+        public Spliterator<String> spliterator() {
+            // splits in halves, unlike the default one for lists
+            return Spliterators.spliterator(mList, mFrom, mFrom + mSize,
+                    Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        }
+    }
+
+    // immutable copy returned by snapshot(), all of its state is final
+    private static final class Snapshot extends ParsedArguments {
+        // all the values of repeatable switches, null for other arguments
+        private final String[][] mFrozenLists;
+        // further occurrences of each flag, null if no flag is repeated
+        private final int[] mFrozenFlagCounts;
+        // variadic positional keyword, copied from the command line
+        private final String mFrozenRestName;
+        private final String[] mFrozenRest;
+        private final boolean mFrozenRevalidateFiles;
+
+        private Snapshot(final SlotTable slotTable,
+                         final SlotTable keyTable,
+                         final String[] values,
+                         final long[] flags,
+                         final Conversion[] conversions,
+                         final String[][] lists,
+                         final int[] flagCounts,
+                         final String restName,
+                         final String[] rest,
+                         final boolean revalidateFiles) {
+            super(slotTable, keyTable, values, flags, conversions);
+            mFrozenLists = lists;
+            mFrozenFlagCounts = flagCounts;
+            mFrozenRestName = restName;
+            mFrozenRest = rest;
+            mFrozenRevalidateFiles = revalidateFiles;
+        }
+
+        @Override
+        public ParsedArguments snapshot() {
+            return this;
+        }
+
+        @Override
+        public void reset() {
+            throw new UnsupportedOperationException("arguments snapshots are immutable");
+        }
+
+        @Override
+        public void set(final String name, final String value) {
+            throw new UnsupportedOperationException("arguments snapshots are immutable");
+        }
+
+        @Override
+        public void setRevalidateFiles(final boolean revalidate) {
+            throw new UnsupportedOperationException("arguments snapshots are immutable");
+        }
+
+        @Override
+        /* package */ boolean isRevalidatingFiles() {
+            return mFrozenRevalidateFiles;
+        }
+
+        @Override
+        /* package */ String getRestName() {
+            return mFrozenRestName;
+        }
+
+        @Override
+        public List<String> getRest() {
+            return new ValuesView(mFrozenRest, 0, mFrozenRest.length);
+        }
+
+        @Override
+        /* package */ List<String> stringsAt(final int slot) {
+            if (mFrozenLists != null && mFrozenLists[slot] != null) {
+                return new ValuesView(mFrozenLists[slot], 0, mFrozenLists[slot].length);
+            }
+            return super.stringsAt(slot);
+        }
+
+        @Override
+        public int getCount(final String name) {
+            final int slot = getSlotTable().slotOf(name);
+            if (slot >= 0 && mFrozenLists != null && mFrozenLists[slot] != null) {
+                return mFrozenLists[slot].length;
+            }
+            if (slot >= 0 && mFrozenFlagCounts != null && mFrozenFlagCounts[slot] > 0) {
+                return 1 + mFrozenFlagCounts[slot];
+            }
+            return super.getCount(name);
         }
-        return defaultValue;
     }
-}
\ No newline at end of file
+}
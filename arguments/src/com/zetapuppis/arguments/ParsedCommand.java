@@ -0,0 +1,33 @@
+package com.zetapuppis.arguments;
+
+/**
+ * The subcommand selected on the command line together with its parsed
+ * arguments.
+ *
+ * @see CommandDispatcher#parse(String[])
+ */
+public final class ParsedCommand {
+    private final String mName;
+    private final ParsedArguments mArguments;
+
+    /* package */ ParsedCommand(final String name, final ParsedArguments arguments) {
+        mName = name;
+        mArguments = arguments;
+    }
+
+    /**
+     * Returns the name of the selected subcommand.
+     * @return the subcommand's name
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Returns the arguments that followed the subcommand.
+     * @return the subcommand's {@link ParsedArguments}
+     */
+    public ParsedArguments getArguments() {
+        return mArguments;
+    }
+}
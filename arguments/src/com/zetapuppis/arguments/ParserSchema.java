@@ -0,0 +1,1121 @@
+package com.zetapuppis.arguments;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A compiled, immutable set of positional and switch-based arguments.
+ * <p>
+ * Unlike {@link CommandLineParser}, which is bound to a single argument
+ * list, a {@link ParserSchema} is defined once through a {@link Builder}
+ * and can then parse any number of argument lists. All the validation of
+ * the argument definitions (duplicate names, positions that are not
+ * contiguous) happens once in {@link Builder#build()}, so that
+ * {@link #parse(String[])} only performs the actual parsing work.
+ * <p>
+ * When enabled through {@link Builder#expandArgumentFiles()}, arguments in
+ * the form <code>@file</code> are replaced by the arguments contained in
+ * the given file, see {@link Builder#expandArgumentFiles(Charset)}.
+ * <p>
+ * Switches missing from the command line can fall back to environment
+ * variables and properties files, in this order of precedence, see
+ * {@link Builder#withEnvironmentPrefix(String)} and
+ * {@link Builder#withProperties(File)}. Fallback values are resolved once
+ * in {@link Builder#build()}, they also satisfy required switches.
+ * <p>
+ * Instances of this class are immutable and can be safely shared between
+ * threads, {@link #parseAll(Collection)} parses many command lines in
+ * parallel with the same schema. Parsing can be observed by a
+ * {@link ParseListener}, see {@link Builder#withListener(ParseListener)}.
+ * Applications that keep many parsed command lines around can share their
+ * repeated values through a {@link ValuePool}, see
+ * {@link Builder#withValuePool(ValuePool)}, while command lines that are
+ * parsed over and over can be cached, see {@link Builder#withParseCache(int)}.
+ *
+ * @see CommandLineParser
+ */
+public final class ParserSchema {
+    // chunks of command lines handed out to each thread by parseAll()
+    private final static int CHUNKS_PER_THREAD = 4;
+
+    private final PositionalArgument[] mPositionals;
+    private final SwitchIndex mSwitchIndex;
+    // positional keywords first, then switches
+    private final SlotTable mSlotTable;
+    // null if argument files are not expanded
+    private final Charset mArgumentFileCharset;
+    // values of the switches missing from the command line, by slot,
+    // null if no switch has a fallback value
+    private final String[] mFallbacks;
+    // null if parsing isn't being observed
+    private final ParseListener mListener;
+    // null if values are not interned
+    private final ValuePool mValuePool;
+    // null if parsed command lines are not cached
+    private final ParseCache mParseCache;
+    // name of the variadic positional keyword, null if there's none
+    private final String mRestName;
+
+    private ParserSchema(final PositionalArgument[] positionals,
+                         final String restName,
+                         final SwitchIndex switchIndex,
+                         final Charset argumentFileCharset,
+                         final String[] fallbacks,
+                         final ParseListener listener,
+                         final ValuePool valuePool,
+                         final ParseCache parseCache) {
+        mPositionals = positionals;
+        mRestName = restName;
+        mSwitchIndex = switchIndex;
+        mArgumentFileCharset = argumentFileCharset;
+        mFallbacks = fallbacks;
+        mListener = listener;
+        mValuePool = valuePool;
+        mParseCache = parseCache;
+
+        final SlotTable switchSlots = switchIndex.getSlotTable();
+        final String[] names = new String[positionals.length + switchSlots.size()];
+        for (int i = 0; i < positionals.length; i++) {
+            names[i] = positionals[i].getName();
+        }
+        for (int i = 0; i < switchSlots.size(); i++) {
+            names[positionals.length + i] = switchSlots.nameOf(i);
+        }
+        mSlotTable = new SlotTable(names);
+    }
+
+    /**
+     * Creates a new {@link Builder} for a {@link ParserSchema}.
+     * @return an empty {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parse the given command line string list.
+     * @param args input argument list
+     * @return a {@link ParsedArguments} instance whose fields have been valorized
+     *         with the parsed argument's values
+     * @throws SwitchArgumentException if some error happens while parsing switch-based
+     *         arguments
+     * @throws PositionalArgumentException if some error happens while parsing
+     *         positional keywords
+     * @throws ArgumentFileException if an argument file cannot be read
+     */
+    public ParsedArguments parse(final String[] args)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException {
+        return parse(args, 0);
+    }
+
+    /**
+     * Parse the given command line string list, ignoring the arguments that
+     * come before the given offset.
+     * <p>
+     * Arguments are read in place in a single pass and stored straight into
+     * the returned {@link ParsedArguments}: the given array is never copied
+     * nor modified. Argument files, if enabled, are tokenized while they
+     * are being read.
+     * <p>
+     * If the schema caches its command lines, the returned arguments are an
+     * immutable {@link ParsedArguments#snapshot() snapshot} shared by all
+     * the parses of the same command line.
+     * @param args input argument list
+     * @param offset index of the first argument to parse, the first positional
+     *               keyword will be read from this index
+     * @return a {@link ParsedArguments} instance whose fields have been valorized
+     *         with the parsed argument's values
+     * @throws SwitchArgumentException if some error happens while parsing switch-based
+     *         arguments
+     * @throws PositionalArgumentException if some error happens while parsing
+     *         positional keywords
+     * @throws ArgumentFileException if an argument file cannot be read
+     */
+    public ParsedArguments parse(final String[] args, final int offset)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException {
+        checkOffset(args, offset);
+
+        final ParseCache.Key key = cacheKey(args, offset);
+        if (key != null) {
+            final ParsedArguments cached = mParseCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final ParsedArguments parsed = newArguments();
+        parse(args, offset, new ParseSession(mSwitchIndex, mPositionals.length, parsed), false);
+        return key == null ? parsed : cache(key, parsed);
+    }
+
+    /**
+     * Parse the given command line followed by the arguments read from the
+     * given input, such as a list of files piped into the standard input.
+     * <p>
+     * The input is parsed as if it was appended to the command line, but
+     * it is never held in memory: its arguments are parsed as soon as they
+     * are read, and its values are handed to the given consumer in order
+     * rather than being stored. Switches are recognized in the input as
+     * well (after <code>--</code> everything is a value), and positional
+     * keywords missing from the command line are read from it. Argument
+     * files are not expanded in the input.
+     * <p>
+     * If parsing fails, the values read before the error have already been
+     * handed to the consumer.
+     * @param args input argument list
+     * @param input arguments that follow the command line
+     * @param values receives the values read from the input, while it is
+     *               being read
+     * @return a {@link ParsedArguments} instance whose fields have been valorized
+     *         with the parsed argument's values
+     * @throws SwitchArgumentException if some error happens while parsing switch-based
+     *         arguments
+     * @throws PositionalArgumentException if some error happens while parsing
+     *         positional keywords
+     * @throws ArgumentFileException if an argument file cannot be read
+     * @throws ArgumentInputException if the input cannot be read or decoded
+     */
+    public ParsedArguments parse(final String[] args, final ArgumentInput input, final Consumer<String> values)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException,
+                   ArgumentInputException {
+        final ParsedArguments parsed = newArguments();
+        parse(args, 0, new ParseSession(mSwitchIndex, mPositionals.length, parsed), false, input, values);
+        return parsed;
+    }
+
+    /**
+     * Same as {@link #parse(String[], int)} but never expands argument files.
+     */
+    /* package */ ParsedArguments parseLiteral(final String[] args, final int offset)
+            throws SwitchArgumentException, PositionalArgumentException {
+        checkOffset(args, offset);
+
+        final ParsedArguments parsed = newArguments();
+        try {
+            parse(args, offset, new ParseSession(mSwitchIndex, mPositionals.length, parsed), true);
+        } catch (ArgumentFileException ex) {
+            // argument files are not expanded
+            throw new IllegalStateException(ex);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses many command lines in parallel on the common
+     * {@link ForkJoinPool}.
+     * @param lines command lines to parse
+     * @return the result of each command line, in the same order as the
+     *         given collection
+     * @see #parseAll(Collection, Executor)
+     */
+    public List<ParseResult> parseAll(final Collection<String[]> lines) {
+        return parseAll(lines, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses many command lines in parallel on the given executor.
+     * <p>
+     * Command lines are split in chunks that are handed out to the
+     * executor's threads as they become free; the calling thread parses
+     * chunks as well, so that the batch completes even if the executor is
+     * busy or rejects the work. A command line that fails to parse doesn't
+     * stop the others: its error is reported in its own {@link ParseResult}.
+     * @param lines command lines to parse
+     * @param executor runs the parsing tasks
+     * @return the result of each command line, in the same order as the
+     *         given collection
+     */
+    public List<ParseResult> parseAll(final Collection<String[]> lines, final Executor executor) {
+        final String[][] all = lines.toArray(new String[lines.size()][]);
+        final ParseResult[] results = new ParseResult[all.length];
+        if (all.length == 0) {
+            return Collections.emptyList();
+        }
+
+        final int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        final int chunkCount = Math.min(all.length, parallelism * CHUNKS_PER_THREAD);
+        final BatchParse batch = new BatchParse(all, results, chunkCount);
+
+        try {
+            for (int i = 1; i < chunkCount; i++) {
+                executor.execute(batch);
+            }
+        } catch (RejectedExecutionException ex) {
+            // the calling thread will parse the remaining chunks
+        }
+        batch.run();
+        batch.await();
+
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Parses a stream of command lines in parallel.
+     * <p>
+     * The returned stream is lazy and parallel: command lines are parsed
+     * by the terminal operation, which keeps the order of the given stream
+     * if it is ordered.
+     * @param lines command lines to parse
+     * @return the result of each command line
+     */
+    public Stream<ParseResult> parseAll(final Stream<String[]> lines) {
+        return lines.parallel().map(this::tryParse);
+    }
+
+    /**
+     * Parse the given command line string list without throwing exceptions.
+     * @param args input argument list
+     * @return the {@link ParseResult} of the command line
+     * @see #tryParse(String[], int)
+     */
+    public ParseResult tryParse(final String[] args) {
+        return tryParse(args, 0);
+    }
+
+    /**
+     * Parse the given command line string list without throwing exceptions,
+     * ignoring the arguments that come before the given offset.
+     * <p>
+     * Unlike {@link #parse(String[], int)}, parsing doesn't stop at the
+     * first error: invalid arguments are skipped and every problem is
+     * reported as a {@link ParseError} of the returned result. No exception
+     * is created and error messages are only formatted when requested,
+     * which makes this the cheaper way to check untrusted command lines
+     * that are often invalid.
+     * @param args input argument list
+     * @param offset index of the first argument to parse, the first positional
+     *               keyword will be read from this index
+     * @return the {@link ParseResult} of the command line
+     */
+    public ParseResult tryParse(final String[] args, final int offset) {
+        checkOffset(args, offset);
+
+        final ParseCache.Key key = cacheKey(args, offset);
+        if (key != null) {
+            final ParsedArguments cached = mParseCache.get(key);
+            if (cached != null) {
+                return ParseResult.success(cached);
+            }
+        }
+
+        final long start = mListener == null ? 0 : System.nanoTime();
+        final ParsedArguments parsed = newArguments();
+        final List<ParseError> errors = new ArrayList<ParseError>();
+        final ParseSession session = new ParseSession(mSwitchIndex, mPositionals.length, parsed, errors);
+        session.setListener(mListener);
+        session.setValuePool(mValuePool);
+        try {
+            final int literalFrom = literalFrom(args, offset);
+            for (int i = offset; i < args.length; i++) {
+                try {
+                    accept(args, i, literalFrom, session);
+                    if (session.isComplete()) {
+                        break;
+                    }
+                } catch (ArgumentFileException ex) {
+                    errors.add(new ParseError(ParseError.Code.ARGUMENT_FILE, args[i], ex.getMessage()));
+                }
+            }
+
+            session.finishPositionals();
+            session.applyFallbacks(mFallbacks);
+            session.finishSwitches();
+        } catch (CmdLineException ex) {
+            // sessions that collect their errors never throw
+            throw new IllegalStateException(ex);
+        }
+        if (mListener != null) {
+            mListener.onParse(session.getTokenCount(), System.nanoTime() - start, errors.isEmpty());
+        }
+        if (!errors.isEmpty()) {
+            return ParseResult.failure(errors);
+        }
+        return ParseResult.success(key == null ? parsed : cache(key, parsed));
+    }
+
+    /**
+     * Returns the cache of the command lines parsed by this schema.
+     * @return a {@link ParseCache}, or null if command lines are not cached
+     * @see Builder#withParseCache(int)
+     */
+    public ParseCache getParseCache() {
+        return mParseCache;
+    }
+
+    // the cache key of the given command line, null if it can't be cached
+    private ParseCache.Key cacheKey(final String[] args, final int offset) {
+        if (mParseCache == null) {
+            return null;
+        }
+        if (literalFrom(args, offset) > offset) {
+            // argument files can change between parses
+            return null;
+        }
+        return new ParseCache.Key(args, offset);
+    }
+
+    private ParsedArguments cache(final ParseCache.Key key, final ParsedArguments parsed) {
+        final ParsedArguments snapshot = parsed.snapshot();
+        mParseCache.put(key, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Creates empty arguments for this schema, meant to be filled
+     * repeatedly by {@link #parseInto(String[], int, ParsedArguments)}.
+     * @return an empty {@link ParsedArguments}
+     */
+    public ParsedArguments newArguments() {
+        final ParsedArguments parsed = new ParsedArguments(mSlotTable);
+        parsed.setRestName(mRestName);
+        parsed.setListener(mListener);
+        return parsed;
+    }
+
+    /**
+     * Parse the given command line string list into existing arguments,
+     * ignoring the arguments that come before the given offset.
+     * <p>
+     * The target is {@link ParsedArguments#reset() reset} first and all of
+     * its internal storage is reused, so that once it has been used for a
+     * parse of the same size, parsing again doesn't allocate: values are
+     * stored by reference and error messages are only built on failure.
+     * The only exceptions are values attached to their switch
+     * (<code>--option=value</code>), which have to be extracted from their
+     * token, and the content of argument files.
+     * <p>
+     * If parsing fails, the content of the target is undefined until the
+     * next successful parse.
+     * @param args input argument list
+     * @param offset index of the first argument to parse, the first positional
+     *               keyword will be read from this index
+     * @param target arguments created by {@link #newArguments()} on this
+     *               schema
+     * @throws SwitchArgumentException if some error happens while parsing switch-based
+     *         arguments
+     * @throws PositionalArgumentException if some error happens while parsing
+     *         positional keywords
+     * @throws ArgumentFileException if an argument file cannot be read
+     * @throws IllegalArgumentException if the target has been created by a
+     *         different schema
+     */
+    public void parseInto(final String[] args, final int offset, final ParsedArguments target)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException {
+        if (target.getSlotTable() != mSlotTable) {
+            throw new IllegalArgumentException("arguments don't belong to this schema");
+        }
+        checkOffset(args, offset);
+
+        target.reset();
+        parse(args, offset, target.getSession(mSwitchIndex, mPositionals.length), false);
+    }
+
+    private void parse(final String[] args, final int offset, final ParseSession session, final boolean literal)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException {
+        try {
+            parse(args, offset, session, literal, null, null);
+        } catch (ArgumentInputException ex) {
+            // there's no input to read
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void parse(final String[] args,
+                       final int offset,
+                       final ParseSession session,
+                       final boolean literal,
+                       final ArgumentInput input,
+                       final Consumer<String> values)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException,
+                   ArgumentInputException {
+        session.setValuePool(mValuePool);
+        if (mListener == null) {
+            parseTokens(args, offset, session, literal, input, values);
+            return;
+        }
+
+        session.setListener(mListener);
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            parseTokens(args, offset, session, literal, input, values);
+            success = true;
+        } finally {
+            mListener.onParse(session.getTokenCount(), System.nanoTime() - start, success);
+        }
+    }
+
+    private void parseTokens(final String[] args,
+                             final int offset,
+                             final ParseSession session,
+                             final boolean literal,
+                             final ArgumentInput input,
+                             final Consumer<String> values)
+            throws SwitchArgumentException, PositionalArgumentException, ArgumentFileException,
+                   ArgumentInputException {
+        if (literal || mArgumentFileCharset == null) {
+            session.setSource(args, offset);
+            for (int i = offset; i < args.length && !session.isComplete(); i++) {
+                session.accept(args[i]);
+            }
+        } else {
+            final int literalFrom = literalFrom(args, offset);
+            for (int i = offset; i < args.length && !session.isComplete(); i++) {
+                accept(args, i, literalFrom, session);
+            }
+        }
+        if (input != null) {
+            readInput(input, values, session);
+        }
+
+        session.finishPositionals();
+        session.applyFallbacks(mFallbacks);
+        session.finishSwitches();
+    }
+
+    // pushes the arguments of the given input to the session, as they are read
+    private static void readInput(final ArgumentInput input, final Consumer<String> values, final ParseSession session)
+            throws SwitchArgumentException, ArgumentInputException {
+        session.setSource(null, 0);
+        session.setValueConsumer(values);
+        final DelimitedTokenizer<SwitchArgumentException> tokenizer =
+                new DelimitedTokenizer<SwitchArgumentException>(session, input.getDelimiter().getChar());
+        try {
+            ArgumentFileReader.read(input.getChannel(), input.getCharset(), tokenizer);
+        } catch (CharacterCodingException ex) {
+            throw new ArgumentInputException(
+                    String.format("cannot decode arguments as %s", input.getCharset().name()));
+        } catch (IOException ex) {
+            throw new ArgumentInputException(
+                    String.format("cannot read arguments: %s", ex.getMessage()));
+        }
+        // the last argument doesn't need a delimiter
+        tokenizer.finish();
+    }
+
+    private static void checkOffset(final String[] args, final int offset) {
+        if (offset < 0 || offset > args.length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("offset %d out of bounds for %d arguments", offset, args.length));
+        }
+    }
+
+    /**
+     * Pushes a single command line argument to the given session, expanding
+     * it if it refers to an argument file. Callers must stop pushing
+     * arguments once the session {@link ParseSession#isComplete() is complete}.
+     * @param args command line
+     * @param index index of the argument to push
+     * @param literalFrom index returned by {@link #literalFrom(String[], int)}
+     * @param session where to push the argument
+     * @throws SwitchArgumentException if the argument is not valid
+     * @throws ArgumentFileException if an argument file cannot be read
+     */
+    /* package */ void accept(final String[] args, final int index, final int literalFrom,
+                              final ParseSession session)
+            throws SwitchArgumentException, ArgumentFileException {
+        final String arg = args[index];
+        // the variadic keyword can only be a range of the command line if
+        // no argument file has to be expanded in that range
+        session.setSource(index >= literalFrom ? args : null, index);
+        if (isArgumentFile(arg)) {
+            expandArgumentFile(arg, session);
+        } else {
+            session.accept(arg);
+        }
+    }
+
+    /**
+     * Returns the index of the first argument after the last argument file.
+     * @param args command line
+     * @param offset index of the first argument to parse
+     * @return the index of the first argument that is neither an argument
+     *         file nor followed by one
+     */
+    /* package */ int literalFrom(final String[] args, final int offset) {
+        if (mArgumentFileCharset != null) {
+            for (int i = args.length - 1; i >= offset; i--) {
+                if (isArgumentFile(args[i])) {
+                    return i + 1;
+                }
+            }
+        }
+        return offset;
+    }
+
+    private boolean isArgumentFile(final String arg) {
+        return mArgumentFileCharset != null && arg.length() > 1 && arg.charAt(0) == '@';
+    }
+
+    /**
+     * Returns the name of the variadic positional keyword.
+     * @return the name of the keyword, or null if there's none
+     */
+    /* package */ String getRestName() {
+        return mRestName;
+    }
+
+    /**
+     * Parse the given command line string list lazily, only reading the
+     * switches once they are queried.
+     * @param args input argument list
+     * @return a {@link LazyArguments} instance over the given arguments
+     * @see #parseLazily(String[], int)
+     */
+    public LazyArguments parseLazily(final String[] args) {
+        return parseLazily(args, 0);
+    }
+
+    /**
+     * Parse the given command line string list lazily, ignoring the
+     * arguments that come before the given offset.
+     * <p>
+     * Only the positional keywords are read right away, switches are read
+     * when the getters of the returned {@link LazyArguments} first ask for
+     * one of them. Errors are reported by
+     * {@link LazyArguments#validate()}, which also performs the checks for
+     * required switches.
+     * <p>
+     * The given array is not copied and must not be modified while the
+     * returned arguments are in use.
+     * @param args input argument list
+     * @param offset index of the first argument to parse, the first positional
+     *               keyword will be read from this index
+     * @return a {@link LazyArguments} instance over the given arguments
+     */
+    public LazyArguments parseLazily(final String[] args, final int offset) {
+        checkOffset(args, offset);
+        return new LazyArguments(this, mSlotTable, mSwitchIndex, mPositionals.length,
+                mFallbacks, mListener, mValuePool, args, offset);
+    }
+
+    private void expandArgumentFile(final String arg, final ParseSession session)
+            throws SwitchArgumentException, ArgumentFileException {
+        if (arg.charAt(1) == '@') {
+            // "@@value" is the escaped form of the literal "@value"
+            session.accept(arg.substring(1));
+            return;
+        }
+        ArgumentFileReader.read(new File(arg.substring(1)), mArgumentFileCharset, session);
+    }
+
+    // shared by all the threads of a parseAll() call, which claim chunks of
+    // command lines until there are none left
+    private final class BatchParse implements Runnable {
+        private final String[][] mLines;
+        private final ParseResult[] mResults;
+        private final int mChunkCount;
+        private final int mChunkSize;
+        private final AtomicInteger mNextChunk = new AtomicInteger();
+        private final CountDownLatch mDone;
+        private final AtomicReference<Throwable> mFailure = new AtomicReference<Throwable>();
+
+        private BatchParse(final String[][] lines, final ParseResult[] results, final int chunkCount) {
+            mLines = lines;
+            mResults = results;
+            mChunkCount = chunkCount;
+            mChunkSize = (lines.length + chunkCount - 1) / chunkCount;
+            mDone = new CountDownLatch(chunkCount);
+        }
+
+        @Override
+        public void run() {
+            int chunk;
+            while ((chunk = mNextChunk.getAndIncrement()) < mChunkCount) {
+                try {
+                    final int end = Math.min(mLines.length, (chunk + 1) * mChunkSize);
+                    for (int i = chunk * mChunkSize; i < end; i++) {
+                        mResults[i] = tryParse(mLines[i]);
+                    }
+                } catch (RuntimeException ex) {
+                    mFailure.compareAndSet(null, ex);
+                } catch (Error err) {
+                    mFailure.compareAndSet(null, err);
+                } finally {
+                    mDone.countDown();
+                }
+            }
+        }
+
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mDone.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            final Throwable failure = mFailure.get();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+
+    /**
+     * Returns a typed handle to the given argument, that reads the argument's
+     * value from the {@link ParsedArguments} produced by this schema without
+     * looking it up by name.
+     * @param name name of an argument declared in this schema
+     * @param converter converts the argument's raw value
+     * @param <T> type of the argument's value
+     * @return an {@link ArgumentKey} for the argument
+     * @throws IllegalArgumentException if no argument with the given name has
+     *         been declared in this schema
+     */
+    public <T> ArgumentKey<T> key(final String name, final ArgumentConverter<T> converter) {
+        final int slot = mSlotTable.slotOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException(String.format("%s is not a declared argument", name));
+        }
+        return new ArgumentKey<T>(mSlotTable, slot, converter);
+    }
+
+    /**
+     * Returns a handle to the given argument's value as a string.
+     * @param name name of an argument declared in this schema
+     * @return an {@link ArgumentKey} for the argument
+     * @throws IllegalArgumentException if no argument with the given name has
+     *         been declared in this schema
+     * @see #key(String, ArgumentConverter)
+     */
+    public ArgumentKey<String> stringKey(final String name) {
+        return key(name, Converters.STRING);
+    }
+
+    /**
+     * Returns a handle to the given argument's value converted to an integer.
+     * @param name name of an argument declared in this schema
+     * @return an {@link ArgumentKey} for the argument
+     * @throws IllegalArgumentException if no argument with the given name has
+     *         been declared in this schema
+     * @see #key(String, ArgumentConverter)
+     */
+    public ArgumentKey<Integer> intKey(final String name) {
+        return key(name, Converters.INTEGER);
+    }
+
+    /**
+     * Returns a handle to the given argument's value converted to a char.
+     * @param name name of an argument declared in this schema
+     * @return an {@link ArgumentKey} for the argument
+     * @throws IllegalArgumentException if no argument with the given name has
+     *         been declared in this schema
+     * @see #key(String, ArgumentConverter)
+     */
+    public ArgumentKey<Character> charKey(final String name) {
+        return key(name, Converters.CHARACTER);
+    }
+
+    /**
+     * Returns a handle to the given argument's value converted to a
+     * {@link File} object.
+     * @param name name of an argument declared in this schema
+     * @return an {@link ArgumentKey} for the argument
+     * @throws IllegalArgumentException if no argument with the given name has
+     *         been declared in this schema
+     * @see #key(String, ArgumentConverter)
+     */
+    public ArgumentKey<File> fileKey(final String name) {
+        return key(name, Converters.FILE);
+    }
+
+    /**
+     * Builder for {@link ParserSchema} instances.
+     * <p>
+     * A builder is not thread-safe, however the {@link ParserSchema} instances
+     * it creates are.
+     */
+    public static final class Builder {
+        // use a Map to avoid duplicates
+        private final Map<Integer, PositionalArgument> mPositions = new HashMap<Integer, PositionalArgument>();
+        private final SwitchParser mSwitchParser = new SwitchParser();
+        private final Set<String> mArgumentNameSet = new HashSet<String>();
+        private Charset mArgumentFileCharset = null;
+        // fallback sources for switches missing from the command line
+        private final Set<String> mSwitchNames = new HashSet<String>();
+        private final Map<String, String> mEnvironmentVariables = new HashMap<String, String>();
+        private String mEnvironmentPrefix = null;
+        private final Properties mProperties = new Properties();
+        private Map<String, String> mEnvironment = null;
+        private ParseListener mListener = null;
+        private String mRestName = null;
+        private ValuePool mValuePool = null;
+        private int mParseCacheCapacity = 0;
+
+        private Builder() {}
+
+        /**
+         * Adds a positional keyword to the schema.
+         *
+         * <p>Note that position indices starts at 1.
+         * @param name unique name of the positional keyword to parse
+         * @param position position of the argument
+         * @return this {@link Builder}
+         * @throws CmdLineException if a keyword with the same name already exists
+         */
+        public Builder addPositional(final String name, final int position) throws CmdLineException {
+            return addPositional(new PositionalArgument(name, position));
+        }
+
+        /**
+         * Adds a positional keyword to the schema.
+         *
+         * <p>Note that position indices starts at 1.
+         * @param positionalArgument an instance of {@link PositionalArgument} that
+         *                           represents the argument to be parsed whose name
+         *                           it's unique across all the arguments for this schema
+         * @return this {@link Builder}
+         * @throws CmdLineException if a keyword with the same name already exists
+         */
+        public Builder addPositional(final PositionalArgument positionalArgument) throws CmdLineException {
+            if (mArgumentNameSet.contains(positionalArgument.getName())) {
+                throw new CmdLineException(
+                        String.format("'%s' is a duplicate argument name for positional argument", positionalArgument.getName()));
+            }
+            mArgumentNameSet.add(positionalArgument.getName());
+            mPositions.put(positionalArgument.getPosition(), positionalArgument);
+            return this;
+        }
+
+        /**
+         * Adds a variadic positional keyword to the schema, which takes all
+         * the remaining arguments.
+         * <p>
+         * The keyword starts at the first argument after the other positional
+         * keywords that is not a switch nor the value of a switch, or right
+         * after <code>--</code>, and takes everything up to the end of the
+         * command line, including arguments that look like switches.
+         * Its values are returned by {@link ParsedArguments#getRest()} as a
+         * view over the command line, so that command lines with many inputs
+         * are never copied.
+         * @param name unique name of the keyword
+         * @return this {@link Builder}
+         * @throws CmdLineException if an argument with the same name already
+         *         exists or the schema already has a variadic keyword
+         */
+        public Builder addRest(final String name) throws CmdLineException {
+            if (mRestName != null) {
+                throw new PositionalArgumentException(
+                        String.format("'%s' can't follow the variadic keyword '%s'", name, mRestName));
+            }
+            if (mArgumentNameSet.contains(name)) {
+                throw new CmdLineException(
+                        String.format("'%s' is a duplicate argument name for positional argument", name));
+            }
+            mArgumentNameSet.add(name);
+            mRestName = name;
+            return this;
+        }
+
+        /**
+         * Adds a switch-based argument to the schema.
+         * @param name unique name of the switch argument to parse
+         * @param hasValue if the argument requires a value right afterwards
+         * @param isRequired if the argument is mandatory
+         * @return this {@link Builder}
+         * @throws CmdLineException if a switch argument with the same name already exists
+         */
+        public Builder addSwitch(final String name,
+                                 final boolean hasValue,
+                                 final boolean isRequired) throws CmdLineException {
+            return addSwitch(new SwitchArgument(name, hasValue, isRequired));
+        }
+
+        /**
+         * Adds a switch-based argument to the schema.
+         * @param name unique name of the switch argument to parse
+         * @param shortName short version of the same switch argument
+         * @param hasValue if the argument requires a value right afterwards
+         * @param isRequired if the argument is mandatory
+         * @return this {@link Builder}
+         * @throws CmdLineException if a switch argument with the same name already exists
+         */
+        public Builder addSwitch(final String name,
+                                 final String shortName,
+                                 final boolean hasValue,
+                                 final boolean isRequired) throws CmdLineException {
+            return addSwitch(new SwitchArgument(name, shortName, hasValue, isRequired));
+        }
+
+        /**
+         * Adds a repeatable switch-based argument to the schema. Repeatable
+         * switches always have a value and keep all the values they've been
+         * given, see {@link ParsedArguments#getStrings(String)}.
+         * @param name unique name of the switch argument to parse
+         * @param shortName short version of the same switch argument
+         * @param isRequired if the argument is mandatory
+         * @return this {@link Builder}
+         * @throws CmdLineException if a switch argument with the same name already exists
+         */
+        public Builder addRepeatableSwitch(final String name,
+                                           final String shortName,
+                                           final boolean isRequired) throws CmdLineException {
+            return addSwitch(new SwitchArgument(name, shortName, true, isRequired, true));
+        }
+
+        /**
+         * Adds a switch-based argument to the schema.
+         * @param switchArgument an instance of {@link SwitchArgument} that
+         *                       represents the argument to be parsed whose name it's
+         *                       unique across all the arguments for this schema
+         * @return this {@link Builder}
+         * @throws CmdLineException if a switch argument with the same name already exists
+         */
+        public Builder addSwitch(final SwitchArgument switchArgument) throws CmdLineException {
+            if (mArgumentNameSet.contains(switchArgument.getName())) {
+                throw new CmdLineException(
+                        String.format("'%s' is a duplicate argument name for keyword", switchArgument.getName()));
+            }
+            mArgumentNameSet.add(switchArgument.getName());
+            mSwitchNames.add(switchArgument.getName());
+            mSwitchParser.addSwitch(switchArgument);
+            return this;
+        }
+
+        /**
+         * Reads the given switch from an environment variable when it's
+         * missing from the command line.
+         * <p>
+         * Environment variables take precedence over properties files, see
+         * {@link #withProperties(File)}. Switches that don't have a value
+         * are set unless the variable is empty or <code>false</code>.
+         * @param name name of a switch already added to the schema
+         * @param variable name of the environment variable
+         * @return this {@link Builder}
+         * @throws CmdLineException if no switch with the given name has been added
+         */
+        public Builder withEnvironment(final String name, final String variable) throws CmdLineException {
+            if (!mSwitchNames.contains(name)) {
+                throw new CmdLineException(String.format("%s is not a switch argument", name));
+            }
+            mEnvironmentVariables.put(name, variable);
+            return this;
+        }
+
+        /**
+         * Reads every switch missing from the command line from an environment
+         * variable named after it: the switch name is upper-cased, dashes are
+         * replaced by underscores and the given prefix is prepended
+         * (<code>--dry-run</code> is read from <code>TOOL_DRY_RUN</code>
+         * for the prefix <code>TOOL_</code>).
+         * <p>
+         * Variables given through {@link #withEnvironment(String, String)}
+         * take precedence.
+         * @param prefix prefix of the environment variables
+         * @return this {@link Builder}
+         */
+        public Builder withEnvironmentPrefix(final String prefix) {
+            mEnvironmentPrefix = prefix;
+            return this;
+        }
+
+        /**
+         * Reads the switches missing from the command line and from the
+         * environment from the given properties file, whose keys are the
+         * switch names (without dashes).
+         * <p>
+         * The file, encoded in UTF-8, is read right away in a single pass:
+         * changes to the file won't affect the schema. When more than one
+         * file is given, later files take precedence.
+         * @param file a properties file
+         * @return this {@link Builder}
+         * @throws ArgumentFileException if the file cannot be read
+         */
+        public Builder withProperties(final File file) throws ArgumentFileException {
+            final Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException | IllegalArgumentException ex) {
+                throw new ArgumentFileException(
+                        String.format("cannot read properties file %s: %s", file, ex.getMessage()));
+            }
+            mProperties.putAll(properties);
+            return this;
+        }
+
+        /**
+         * Replaces the process environment, for tests.
+         */
+        /* package */ Builder withEnvironmentMap(final Map<String, String> environment) {
+            mEnvironment = environment;
+            return this;
+        }
+
+        /**
+         * Sets the listener notified of the parsing events of the schema and
+         * of the reads from the {@link ParsedArguments} it creates. Without
+         * a listener, parsing is not measured at all.
+         * @param listener a thread-safe {@link ParseListener}, or null to
+         *                 remove the current one
+         * @return this {@link Builder}
+         */
+        public Builder withListener(final ParseListener listener) {
+            mListener = listener;
+            return this;
+        }
+
+        /**
+         * Sets the pool the parsed values are interned into, so that the
+         * {@link ParsedArguments} created by the schema share a single
+         * instance of each repeated value rather than keeping references to
+         * their command lines. Fallback values are always shared.
+         * @param valuePool a {@link ValuePool}, possibly shared with other
+         *                  schemas, or null to store values as they are
+         * @return this {@link Builder}
+         */
+        public Builder withValuePool(final ValuePool valuePool) {
+            mValuePool = valuePool;
+            return this;
+        }
+
+        /**
+         * Caches the command lines parsed by the schema, so that parsing
+         * a command line that has already been parsed returns the same
+         * result without reading it again. Each schema built gets its own
+         * {@link ParseCache}, see {@link ParserSchema#getParseCache()}.
+         * <p>
+         * {@link ParserSchema#parse(String[], int)} and
+         * {@link ParserSchema#tryParse(String[], int)} then return immutable
+         * {@link ParsedArguments#snapshot() snapshots}: neither the parses
+         * answered by the cache nor the reads of the snapshots are reported
+         * to the listener. Command lines that contain argument files are
+         * never cached.
+         * @param capacity maximum number of command lines kept, or 0 to
+         *                 disable caching
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if the capacity is negative
+         */
+        public Builder withParseCache(final int capacity) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException(String.format("invalid capacity %d", capacity));
+            }
+            mParseCacheCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Allows long switches to be abbreviated to any of their prefixes, as
+         * long as the abbreviation is not ambiguous.
+         * @return this {@link Builder}
+         * @see SwitchParser#allowAbbreviations()
+         */
+        public Builder allowAbbreviations() {
+            mSwitchParser.allowAbbreviations();
+            return this;
+        }
+
+        /**
+         * Enables the expansion of argument files encoded in UTF-8.
+         * @return this {@link Builder}
+         * @see #expandArgumentFiles(Charset)
+         */
+        public Builder expandArgumentFiles() {
+            return expandArgumentFiles(Charset.forName("UTF-8"));
+        }
+
+        /**
+         * Enables the expansion of argument files.
+         * <p>
+         * Every argument in the form <code>@file</code> is replaced by the
+         * arguments contained in the given file, which are separated by
+         * whitespace and can be quoted like in a shell. Lines starting
+         * with <code>#</code> are ignored. Arguments read from a file are
+         * not expanded again, while <code>@@value</code> stands for the
+         * literal argument <code>@value</code>.
+         * <p>
+         * Files are tokenized while they are being read (large files are
+         * memory-mapped), so their contents are never fully loaded in memory.
+         * @param charset encoding of the argument files
+         * @return this {@link Builder}
+         */
+        public Builder expandArgumentFiles(final Charset charset) {
+            mArgumentFileCharset = charset;
+            return this;
+        }
+
+        /**
+         * Validates the arguments added so far and compiles them into an
+         * immutable {@link ParserSchema}.
+         * <p>
+         * The builder can still be used afterwards, changes won't affect the
+         * schemas that have already been built.
+         * @return a new {@link ParserSchema}
+         * @throws PositionalArgumentException if the positional keywords are not
+         *         contiguous or don't start at position 1
+         */
+        public ParserSchema build() throws PositionalArgumentException {
+            final PositionalArgument[] positionals = PositionalParser.sortAndCheck(mPositions.values());
+            final SwitchIndex switchIndex = mSwitchParser.getSwitchIndex();
+            return new ParserSchema(positionals, mRestName, switchIndex, mArgumentFileCharset,
+                    resolveFallbacks(positionals.length, switchIndex), mListener, mValuePool,
+                    mParseCacheCapacity == 0 ? null : new ParseCache(mParseCacheCapacity));
+        }
+
+        // fallback value of each switch slot, null if no switch has a fallback
+        private String[] resolveFallbacks(final int positionalCount, final SwitchIndex switchIndex) {
+            if (mEnvironmentVariables.isEmpty() && mEnvironmentPrefix == null && mProperties.isEmpty()) {
+                return null;
+            }
+
+            final Map<String, String> environment = mEnvironment != null ? mEnvironment : System.getenv();
+            final String[] fallbacks = new String[positionalCount + switchIndex.getSlotTable().size()];
+            boolean found = false;
+            for (SwitchArgument switchArgument : switchIndex.getSwitches()) {
+                final String name = switchArgument.getName();
+
+                String variable = mEnvironmentVariables.get(name);
+                if (variable == null && mEnvironmentPrefix != null) {
+                    variable = mEnvironmentPrefix + name.toUpperCase(Locale.ROOT).replace('-', '_');
+                }
+                String value = variable == null ? null : environment.get(variable);
+                if (value == null) {
+                    value = mProperties.getProperty(name);
+                }
+
+                if (value != null && !switchArgument.hasValue()) {
+                    value = (value.isEmpty() || value.equalsIgnoreCase("false")) ? null : "";
+                }
+                if (value != null) {
+                    fallbacks[positionalCount + switchIndex.getSlotTable().slotOf(name)] = value;
+                    found = true;
+                }
+            }
+            return found ? fallbacks : null;
+        }
+    }
+}
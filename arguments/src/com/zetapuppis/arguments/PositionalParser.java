@@ -1,31 +1,44 @@
 package com.zetapuppis.arguments;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeSet;
 
 /**
  * Parser for positional keywords
+ * <p>
+ * Once all the keywords have been added, the same parser can be shared
+ * between threads and used for concurrent parses.
  */
 public class PositionalParser {
     // use a Map to avoid duplicates
-    private Map<Integer, PositionalArgument> mPositions = new HashMap<Integer, PositionalArgument>();
+    private final Map<Integer, PositionalArgument> mPositions = new HashMap<Integer, PositionalArgument>();
+    // sorted and checked lazily whenever a new keyword gets added
+    private volatile PositionalArgument[] mSorted = null;
 
+    /**
+     * Adds a new positional keyword.
+     * <p>
+     * Keywords should not be added while other threads are parsing with
+     * this same parser.
+     * @param positionalArgument an instance of {@link PositionalArgument}
+     */
     public PositionalParser addPositional(final PositionalArgument positionalArgument) {
         mPositions.put(positionalArgument.getPosition(), positionalArgument);
+        mSorted = null;
         return this;
     }
 
     public ParsedArguments parse(final String[] args) throws PositionalArgumentException {
         final ParsedArguments parsed = new ParsedArguments();
-        final TreeSet<PositionalArgument> sortedPositionalArguments = getSorted();
+        final PositionalArgument[] sortedPositionalArguments = getSorted();
 
-        if (sortedPositionalArguments.size() == 0) {
+        if (sortedPositionalArguments.length == 0) {
             return parsed;
         }
 
-        checkArguments();
-        if (sortedPositionalArguments.last().getPosition() > args.length) {
+        if (sortedPositionalArguments.length > args.length) {
             throw new PositionalArgumentException("not enough keyword arguments");
         }
 
@@ -36,8 +49,23 @@ public class PositionalParser {
         return parsed;
     }
 
-    private void checkArguments() throws PositionalArgumentException {
-        TreeSet<PositionalArgument> sortedPositionalArguments = getSorted();
+    /**
+     * Sorts the given positional keywords by position and checks that they
+     * are contiguous and start from 1.
+     * @param positionalArguments positional keywords to check
+     * @return the positional keywords sorted by position
+     * @throws PositionalArgumentException if positions are not contiguous or
+     *         don't start from 1
+     */
+    /* package */ static PositionalArgument[] sortAndCheck(
+            final Collection<PositionalArgument> positionalArguments) throws PositionalArgumentException {
+        final TreeSet<PositionalArgument> sorted = new TreeSet<PositionalArgument>(positionalArguments);
+        checkArguments(sorted);
+        return sorted.toArray(new PositionalArgument[sorted.size()]);
+    }
+
+    private static void checkArguments(final TreeSet<PositionalArgument> sortedPositionalArguments)
+            throws PositionalArgumentException {
         // keyword indexing starts at 1, *NOT* 0
         int expectedIdx = 1;
 
@@ -51,7 +79,12 @@ public class PositionalParser {
         }
     }
 
-    private TreeSet<PositionalArgument> getSorted() {
-        return new TreeSet<PositionalArgument>(mPositions.values());
+    private PositionalArgument[] getSorted() throws PositionalArgumentException {
+        PositionalArgument[] sorted = mSorted;
+        if (sorted == null) {
+            sorted = sortAndCheck(mPositions.values());
+            mSorted = sorted;
+        }
+        return sorted;
     }
 }
@@ -0,0 +1,17 @@
+package com.zetapuppis.arguments;
+
+/**
+ * Defines the {@link ParserSchema} of a subcommand. Factories are only
+ * invoked the first time their subcommand is selected.
+ *
+ * @see CommandDispatcher.Builder#addCommand(String, SchemaFactory)
+ */
+@FunctionalInterface
+public interface SchemaFactory {
+    /**
+     * Builds the schema of the subcommand.
+     * @return the {@link ParserSchema} for the subcommand's arguments, never null
+     * @throws CmdLineException if the schema's definition is not valid
+     */
+    public ParserSchema create() throws CmdLineException;
+}
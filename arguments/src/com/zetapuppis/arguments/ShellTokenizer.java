@@ -0,0 +1,152 @@
+package com.zetapuppis.arguments;
+
+import java.nio.CharBuffer;
+
+/**
+ * A {@link Tokenizer} that splits text using shell-like rules.
+ * <p>
+ * Tokens are separated by whitespace. Single quotes preserve their content
+ * literally, double quotes preserve it except for <code>\"</code> and
+ * <code>\\</code> escapes, while outside quotes a backslash escapes the
+ * following character (a backslash right before a line break joins the two
+ * lines). A <code>#</code> at the start of a token comments out the rest of
+ * the line.
+ * <p>
+ * Text can be fed in chunks of any size, tokens spanning more than one
+ * chunk are handled transparently.
+ * @param <E> exception thrown by the consumer
+ */
+/* package */ final class ShellTokenizer<E extends Exception> implements Tokenizer<E> {
+    private enum State {
+        BETWEEN_TOKENS,
+        UNQUOTED,
+        SINGLE_QUOTED,
+        DOUBLE_QUOTED,
+        COMMENT
+    }
+
+    private final TokenConsumer<E> mConsumer;
+    private final StringBuilder mToken = new StringBuilder();
+    private State mState = State.BETWEEN_TOKENS;
+    private boolean mEscaped = false;
+    // set after a line continuation ending with "\r", to skip the "\n" that follows
+    private boolean mSkipLineFeed = false;
+
+    /* package */ ShellTokenizer(final TokenConsumer<E> consumer) {
+        mConsumer = consumer;
+    }
+
+    @Override
+    public void feed(final CharBuffer chars) throws E {
+        while (chars.hasRemaining()) {
+            feed(chars.get());
+        }
+    }
+
+    private void feed(final char c) throws E {
+        if (mSkipLineFeed) {
+            mSkipLineFeed = false;
+            if (c == '\n') {
+                return;
+            }
+        }
+
+        if (mEscaped) {
+            mEscaped = false;
+            if (mState == State.DOUBLE_QUOTED) {
+                if (c != '"' && c != '\\') {
+                    mToken.append('\\');
+                }
+                mToken.append(c);
+            } else if (c == '\n' || c == '\r') {
+                // line continuation
+                mSkipLineFeed = c == '\r';
+                if (mToken.length() == 0) {
+                    mState = State.BETWEEN_TOKENS;
+                }
+            } else {
+                mToken.append(c);
+            }
+            return;
+        }
+
+        switch (mState) {
+            case COMMENT:
+                if (c == '\n' || c == '\r') {
+                    mState = State.BETWEEN_TOKENS;
+                }
+                return;
+
+            case SINGLE_QUOTED:
+                if (c == '\'') {
+                    mState = State.UNQUOTED;
+                } else {
+                    mToken.append(c);
+                }
+                return;
+
+            case DOUBLE_QUOTED:
+                if (c == '"') {
+                    mState = State.UNQUOTED;
+                } else if (c == '\\') {
+                    mEscaped = true;
+                } else {
+                    mToken.append(c);
+                }
+                return;
+
+            case BETWEEN_TOKENS:
+                if (Character.isWhitespace(c)) {
+                    return;
+                }
+                if (c == '#') {
+                    mState = State.COMMENT;
+                    return;
+                }
+                mState = State.UNQUOTED;
+                // the character starts a new token
+                break;
+
+            case UNQUOTED:
+                if (Character.isWhitespace(c)) {
+                    emit();
+                    return;
+                }
+                break;
+        }
+
+        if (c == '\'') {
+            mState = State.SINGLE_QUOTED;
+        } else if (c == '"') {
+            mState = State.DOUBLE_QUOTED;
+        } else if (c == '\\') {
+            mEscaped = true;
+        } else {
+            mToken.append(c);
+        }
+    }
+
+    private void emit() throws E {
+        final String token = mToken.toString();
+        mToken.setLength(0);
+        mState = State.BETWEEN_TOKENS;
+        mConsumer.accept(token);
+    }
+
+    /**
+     * Signals that there is no more text, pushing the last token if any.
+     * @return false if the text ended inside quotes, true otherwise
+     * @throws E if the consumer rejects the last token
+     */
+    @Override
+    public boolean finish() throws E {
+        if (mState == State.SINGLE_QUOTED || mState == State.DOUBLE_QUOTED) {
+            return false;
+        }
+        mEscaped = false;
+        if (mState == State.UNQUOTED) {
+            emit();
+        }
+        return true;
+    }
+}
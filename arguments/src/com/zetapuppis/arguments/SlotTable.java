@@ -0,0 +1,53 @@
+package com.zetapuppis.arguments;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable assignment of argument names to fixed integer slots.
+ * <p>
+ * Each argument declared in a {@link ParserSchema} gets its own slot, so
+ * that {@link ParsedArguments} can keep values in a flat array and
+ * {@link ArgumentKey} handles can read them without hashing names.
+ */
+/* package */ final class SlotTable {
+    /* package */ final static SlotTable EMPTY = new SlotTable(new String[0]);
+
+    private final String[] mNames;
+    private final Map<String, Integer> mSlots;
+
+    /* package */ SlotTable(final String[] names) {
+        mNames = names;
+        mSlots = new HashMap<String, Integer>(names.length * 2);
+        for (int slot = 0; slot < names.length; slot++) {
+            mSlots.put(names[slot], slot);
+        }
+    }
+
+    /**
+     * Returns the slot assigned to the given argument name.
+     * @param name argument's name
+     * @return the slot for the argument or -1 if the name is unknown
+     */
+    /* package */ int slotOf(final String name) {
+        final Integer slot = mSlots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the name of the argument assigned to the given slot.
+     * @param slot a valid slot
+     * @return the argument's name
+     */
+    /* package */ String nameOf(final int slot) {
+        return mNames[slot];
+    }
+
+    /**
+     * Returns the number of slots.
+     * @return the number of slots
+     */
+    /* package */ int size() {
+        return mNames.length;
+    }
+}
@@ -10,12 +10,17 @@ package com.zetapuppis.arguments;
  * <br/>
  * The long name is mandatory, while the short name is optional.
  * Options can be mandatory and been assigned a value.
+ * <br/>
+ * Options with a value can also be repeatable, in which case every value
+ * is kept rather than only the last one
+ * (see {@link ParsedArguments#getStrings(String)}).
  */
 public final class SwitchArgument implements ArgumentItem {
     private final String mName;
     private final String mShortName;
     private final boolean mRequired;
     private final boolean mHasValue;
+    private final boolean mRepeatable;
 
     /**
      * Builds a new option instance without a short name.
@@ -40,6 +45,23 @@ public final class SwitchArgument implements ArgumentItem {
                           final String shortName,
                           final boolean hasValue,
                           final boolean required) {
+        this(name, shortName, hasValue, required, false);
+    }
+
+    /**
+     * Builds a new option instance with a short name that might be repeated.
+     * @param name long name
+     * @param shortName short name
+     * @param hasValue requires a value afterwards
+     * @param required is mandatory
+     * @param repeatable keeps all the values when repeated, only meaningful
+     *                   if the option has a value
+     */
+    public SwitchArgument(final String name,
+                          final String shortName,
+                          final boolean hasValue,
+                          final boolean required,
+                          final boolean repeatable) {
         if (name.trim().isEmpty()) {
             throw new IllegalArgumentException("long name can't be empty");
         }
@@ -48,6 +70,7 @@ public final class SwitchArgument implements ArgumentItem {
         mShortName = shortName;
         mHasValue = hasValue;
         mRequired = required;
+        mRepeatable = repeatable && hasValue;
     }
 
     /**
@@ -94,4 +117,13 @@ public final class SwitchArgument implements ArgumentItem {
     public boolean hasValue() {
         return mHasValue;
     }
+
+    /**
+     * Checks whether all the values of the option are kept when the option
+     * is repeated.
+     * @return true if the option is repeatable, false otherwise
+     */
+    public boolean isRepeatable() {
+        return mRepeatable;
+    }
 }
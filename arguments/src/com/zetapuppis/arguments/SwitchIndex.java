@@ -0,0 +1,271 @@
+package com.zetapuppis.arguments;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Frozen lookup structure mapping command line tokens (such as
+ * <code>--option</code>, <code>--option=value</code> or <code>-o</code>)
+ * to their {@link SwitchArgument}.
+ * <p>
+ * Switch names are stored in two character-level tries, one for long names
+ * and one for short names, so that a token is classified in a single pass
+ * over its characters without allocating substrings. The long names trie
+ * also keeps track of the only switch reachable from each node, which makes
+ * unambiguous abbreviations (<code>--verb</code> for <code>--verbose</code>)
+ * as cheap as exact matches.
+ * <p>
+ * Instances are immutable once built and can be shared between concurrent
+ * parses.
+ */
+/* package */ final class SwitchIndex {
+    /* package */ final static String OPT_LONG_PREFIX = "--";
+    /* package */ final static String OPT_SHORT_PREFIX = "-";
+
+    /** Returned by {@link #match(String)} when the token is not a known switch */
+    /* package */ final static long NO_MATCH = -1;
+    /** Returned by {@link #match(String)} when the token abbreviates more than one switch */
+    /* package */ final static long AMBIGUOUS = -2;
+
+    private final static int NO_VALUE = -1;
+    private final static int NO_SWITCH = -1;
+    private final static int AMBIGUOUS_SWITCH = -2;
+
+    private final SwitchArgument[] mSwitches;
+    // slot of each switch, switches sharing the same name share the same slot
+    private final int[] mSlots;
+    private final SlotTable mSlotTable;
+    private final Node mLongRoot = new Node();
+    private final Node mShortRoot = new Node();
+    private final boolean mAllowAbbreviations;
+
+    /* package */ SwitchIndex(final Collection<SwitchArgument> switches,
+                              final boolean allowAbbreviations) {
+        mSwitches = switches.toArray(new SwitchArgument[switches.size()]);
+        mAllowAbbreviations = allowAbbreviations;
+        mSlots = new int[mSwitches.length];
+
+        final Map<String, Integer> nameToSlot = new LinkedHashMap<String, Integer>();
+        for (int id = 0; id < mSwitches.length; id++) {
+            final String name = mSwitches[id].getName();
+            if (!nameToSlot.containsKey(name)) {
+                nameToSlot.put(name, nameToSlot.size());
+            }
+            mSlots[id] = nameToSlot.get(name);
+        }
+        mSlotTable = new SlotTable(nameToSlot.keySet().toArray(new String[nameToSlot.size()]));
+
+        for (int id = 0; id < mSwitches.length; id++) {
+            insert(mLongRoot, mSwitches[id].getName(), id, true);
+
+            if (mSwitches[id].hasShortName()) {
+                insert(mShortRoot, mSwitches[id].getShortName(), id, false);
+            }
+        }
+    }
+
+    private static void insert(final Node root,
+                               final String name,
+                               final int id,
+                               final boolean trackPrefixes) {
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.getOrAddChild(name.charAt(i));
+            if (trackPrefixes) {
+                node.mUnique = (node.mUnique == NO_SWITCH || node.mUnique == id) ? id : AMBIGUOUS_SWITCH;
+            }
+        }
+        node.mTerminal = id;
+    }
+
+    /**
+     * Classifies the given token in a single pass over its characters.
+     * <p>
+     * The result is either {@link #NO_MATCH}, {@link #AMBIGUOUS} or a match
+     * that can be decoded with {@link #switchOf(long)} and
+     * {@link #valueOffsetOf(long)}.
+     * @param token command line token, including its leading dashes
+     * @return the encoded match
+     */
+    /* package */ long match(final String token) {
+        final int length = token.length();
+        if (length < 2 || token.charAt(0) != '-') {
+            return NO_MATCH;
+        }
+
+        if (token.charAt(1) != '-') {
+            // short switches are matched exactly
+            final Node node = walk(mShortRoot, token, 1, length);
+            return (node == null || node.mTerminal == NO_SWITCH) ? NO_MATCH : encode(node.mTerminal, NO_VALUE);
+        }
+
+        // long switches might carry their value (--option=value)
+        int end = 2;
+        while (end < length && token.charAt(end) != '=') {
+            end++;
+        }
+        if (end == 2) {
+            return NO_MATCH;
+        }
+
+        final Node node = walk(mLongRoot, token, 2, end);
+        if (node == null) {
+            return NO_MATCH;
+        }
+
+        int id = node.mTerminal;
+        if (id == NO_SWITCH && mAllowAbbreviations) {
+            id = node.mUnique;
+        }
+        if (id == NO_SWITCH) {
+            return NO_MATCH;
+        }
+        if (id == AMBIGUOUS_SWITCH) {
+            return AMBIGUOUS;
+        }
+        return encode(id, end < length ? end + 1 : NO_VALUE);
+    }
+
+    /**
+     * Returns the switch whose short name is the given single character,
+     * to decode clusters of short switches (<code>-abc</code>).
+     * @param shortName a short switch name
+     * @return the position of the switch in {@link #getSwitches()}, or -1
+     *         if no switch has that short name
+     */
+    /* package */ int shortSwitchOf(final char shortName) {
+        final Node node = mShortRoot.getChild(shortName);
+        return node == null ? NO_SWITCH : node.mTerminal;
+    }
+
+    private static Node walk(final Node root, final String token, final int from, final int to) {
+        Node node = root;
+        for (int i = from; i < to && node != null; i++) {
+            node = node.getChild(token.charAt(i));
+        }
+        return node;
+    }
+
+    private static long encode(final int id, final int valueOffset) {
+        return ((long) id << 32) | (valueOffset & 0xffffffffL);
+    }
+
+    /**
+     * Returns the switch of a successful {@link #match(String)}.
+     * @param match a match that is neither {@link #NO_MATCH} nor {@link #AMBIGUOUS}
+     * @return the matching switch
+     */
+    /* package */ SwitchArgument switchOf(final long match) {
+        return mSwitches[(int) (match >>> 32)];
+    }
+
+    /**
+     * Returns the slot of the switch of a successful {@link #match(String)},
+     * relative to {@link #getSlotTable()}.
+     * @param match a match that is neither {@link #NO_MATCH} nor {@link #AMBIGUOUS}
+     * @return the slot of the matching switch
+     */
+    /* package */ int slotOf(final long match) {
+        return mSlots[(int) (match >>> 32)];
+    }
+
+    /**
+     * Returns the slot of the switch at the given position of
+     * {@link #getSwitches()}, relative to {@link #getSlotTable()}.
+     * @param id position of the switch
+     * @return the slot of the switch
+     */
+    /* package */ int getSlot(final int id) {
+        return mSlots[id];
+    }
+
+    /**
+     * Returns the slots assigned to the names of the indexed switches.
+     * @return the slot table for the indexed switches
+     */
+    /* package */ SlotTable getSlotTable() {
+        return mSlotTable;
+    }
+
+    /**
+     * Returns the offset of the value within the matched token for tokens
+     * in the <code>--option=value</code> form.
+     * @param match a match that is neither {@link #NO_MATCH} nor {@link #AMBIGUOUS}
+     * @return the offset of the value or -1 if the token didn't carry a value
+     */
+    /* package */ static int valueOffsetOf(final long match) {
+        return (int) match;
+    }
+
+    /**
+     * Returns the switch matching the given token.
+     * @param token command line token, including its leading dashes
+     * @return the matching {@link SwitchArgument} or null if the token
+     *         doesn't match any known switch
+     */
+    /* package */ SwitchArgument lookup(final String token) {
+        final long match = match(token);
+        if (match < 0 || valueOffsetOf(match) != NO_VALUE) {
+            return null;
+        }
+        return switchOf(match);
+    }
+
+    /**
+     * Returns all the indexed switches in the order they were registered.
+     * The returned array must not be modified.
+     * @return the indexed switches
+     */
+    /* package */ SwitchArgument[] getSwitches() {
+        return mSwitches;
+    }
+
+    private static final class Node {
+        // children are kept sorted by key
+        private char[] mKeys = new char[0];
+        private Node[] mChildren = new Node[0];
+        private int mTerminal = NO_SWITCH;
+        private int mUnique = NO_SWITCH;
+
+        private Node getChild(final char key) {
+            int low = 0;
+            int high = mKeys.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (mKeys[mid] < key) {
+                    low = mid + 1;
+                } else if (mKeys[mid] > key) {
+                    high = mid - 1;
+                } else {
+                    return mChildren[mid];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(final char key) {
+            int pos = 0;
+            while (pos < mKeys.length && mKeys[pos] < key) {
+                pos++;
+            }
+            if (pos < mKeys.length && mKeys[pos] == key) {
+                return mChildren[pos];
+            }
+
+            final char[] keys = new char[mKeys.length + 1];
+            final Node[] children = new Node[mChildren.length + 1];
+            System.arraycopy(mKeys, 0, keys, 0, pos);
+            System.arraycopy(mChildren, 0, children, 0, pos);
+            System.arraycopy(mKeys, pos, keys, pos + 1, mKeys.length - pos);
+            System.arraycopy(mChildren, pos, children, pos + 1, mChildren.length - pos);
+
+            final Node child = new Node();
+            keys[pos] = key;
+            children[pos] = child;
+            mKeys = keys;
+            mChildren = children;
+            return child;
+        }
+    }
+}
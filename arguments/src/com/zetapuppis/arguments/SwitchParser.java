@@ -1,33 +1,62 @@
 package com.zetapuppis.arguments;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Parser for switch-based command line arguments (arguments in the form
  * of '<code>-c</code>' or '<code>--option</code>').
+ * <p>
+ * Values can either follow the switch (<code>--option value</code>) or be
+ * attached to long switches (<code>--option=value</code>). Switches with
+ * a single character short name can be grouped (<code>-abc</code> for
+ * <code>-a -b -c</code>), the first one taking a value gets the rest of
+ * the group (<code>-j8</code>).
+ * <p>
+ * Once all the switches have been added, the same parser can be shared
+ * between threads and used for concurrent parses.
  */
 public class SwitchParser {
-    private final static String OPT_LONG_PREFIX = "--";
-    private final static String OPT_SHORT_PREFIX = "-";
-
-    private enum State {
-        START,
-        LONG_OPT,
-        SHORT_OPT,
-        VALUE
-    }
-
     private final List<SwitchArgument> mSwitchArgumentList = new ArrayList<SwitchArgument>();
+    // rebuilt lazily whenever a new switch gets added
+    private volatile SwitchIndex mSwitchIndex = null;
+    private boolean mAllowAbbreviations = false;
+    // null if parsing isn't being observed
+    private volatile ParseListener mListener = null;
 
     /**
      * Adds a new switch argument.
+     * <p>
+     * Switches should not be added while other threads are parsing with
+     * this same parser.
      * @param switchArgument an instance of {@link SwitchArgument}
      */
     public SwitchParser addSwitch(final SwitchArgument switchArgument) {
         mSwitchArgumentList.add(switchArgument);
+        mSwitchIndex = null;
+        return this;
+    }
+
+    /**
+     * Allows long switches to be abbreviated to any of their prefixes, as
+     * long as the abbreviation is not ambiguous (for example
+     * <code>--verb</code> for <code>--verbose</code>).
+     */
+    public SwitchParser allowAbbreviations() {
+        mAllowAbbreviations = true;
+        mSwitchIndex = null;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified of the parsing events of this parser and
+     * of the reads from the {@link ParsedArguments} it creates.
+     * @param listener a thread-safe {@link ParseListener}, or null to remove
+     *                 the current one
+     * @see ParserSchema.Builder#withListener(ParseListener)
+     */
+    public SwitchParser withListener(final ParseListener listener) {
+        mListener = listener;
         return this;
     }
 
@@ -40,99 +69,46 @@ public class SwitchParser {
      *         not formatted properly
      */
     public ParsedArguments parse(final String[] args) throws SwitchArgumentException {
-        final ParsedArguments parsed = new ParsedArguments();
-        final Map<String, SwitchArgument> switchIndex = preprocessSwitches();
-
-        State currentState = State.START;
-        String currentSwitch = "";
-
-        int i = 0;
-        while (i < args.length) {
-            String arg = args[i];
-
-            switch (currentState) {
-                case START:
-                    // no known state (start of a new argument)
-                    if (arg.startsWith(OPT_LONG_PREFIX)) {
-                        currentState = State.LONG_OPT;
-                        if (!switchIndex.containsKey(arg)) {
-                            throw new SwitchArgumentException(
-                                    String.format("%s is an unknown argument", arg));
-                        }
-                        currentSwitch = switchIndex.get(arg).getName();
-                        continue;
-                    }
-
-                    if (arg.startsWith(OPT_SHORT_PREFIX)) {
-                        currentState = State.SHORT_OPT;
-                        if (!switchIndex.containsKey(arg)) {
-                            throw new SwitchArgumentException(
-                                    String.format("%s is an unknown argument", arg));
-                        }
-                        currentSwitch = switchIndex.get(arg).getName();
-                        continue;
-                    }
-
-                    throw new SwitchArgumentException("invalid arguments");
-
-                case LONG_OPT:
-                case SHORT_OPT:
-                    // recognized argument
-                    if (!switchIndex.containsKey(arg)) {
-                        throw new SwitchArgumentException(
-                                String.format("%s is an unrecognized argument", arg));
-                    }
-
-                    if (switchIndex.get(arg).hasValue()) {
-                        currentState = State.VALUE;
-                        if ((i + 1) == args.length) {
-                            throw new SwitchArgumentException(
-                                    String.format("missing value for %s", arg));
-                        }
-                    } else {
-                        currentState = State.START;
-                    }
-
-                    parsed.set(currentSwitch);
-                    i++;
-                    break;
-
-                case VALUE:
-                    // argument has a value right next to it
-                    parsed.set(currentSwitch, arg);
-                    currentState = State.START;
-                    i++;
-                    break;
-            }
+        final SwitchIndex switchIndex = getSwitchIndex();
+        final ParsedArguments parsed = new ParsedArguments(switchIndex.getSlotTable());
+        final ParseSession session = new ParseSession(switchIndex, 0, parsed);
+        final ParseListener listener = mListener;
+        if (listener == null) {
+            parse(args, session);
+            return parsed;
         }
 
-        checkRequirements(parsed);
-
+        parsed.setListener(listener);
+        session.setListener(listener);
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            parse(args, session);
+            success = true;
+        } finally {
+            listener.onParse(session.getTokenCount(), System.nanoTime() - start, success);
+        }
         return parsed;
     }
 
-    private Map<String, SwitchArgument> preprocessSwitches() {
-        Map<String, SwitchArgument> stringToSwitch = new HashMap<String, SwitchArgument>();
-
-        for (SwitchArgument switchArgument : mSwitchArgumentList) {
-            String longOpt = OPT_LONG_PREFIX.concat(switchArgument.getName());
-            stringToSwitch.put(longOpt, switchArgument);
-
-            if (switchArgument.hasShortName()) {
-                String shortOpt = OPT_SHORT_PREFIX.concat(switchArgument.getShortName());
-                stringToSwitch.put(shortOpt, switchArgument);
-            }
+    private static void parse(final String[] args, final ParseSession session) throws SwitchArgumentException {
+        for (String arg : args) {
+            session.accept(arg);
         }
-
-        return stringToSwitch;
+        session.finishSwitches();
     }
 
-    private void checkRequirements(final ParsedArguments parsed) throws SwitchArgumentException {
-        for (SwitchArgument switchArgument : mSwitchArgumentList) {
-            if (switchArgument.isRequired() && !parsed.has(switchArgument.getName())) {
-                throw new SwitchArgumentException(
-                        String.format("%s was a required argument", switchArgument.getName()));
-            }
+    /**
+     * Returns the lookup index for the registered switches, building it
+     * only if some switch was added since the last time it was built.
+     * @return the current {@link SwitchIndex}
+     */
+    /* package */ SwitchIndex getSwitchIndex() {
+        SwitchIndex switchIndex = mSwitchIndex;
+        if (switchIndex == null) {
+            switchIndex = new SwitchIndex(mSwitchArgumentList, mAllowAbbreviations);
+            mSwitchIndex = switchIndex;
         }
+        return switchIndex;
     }
 }
@@ -0,0 +1,14 @@
+package com.zetapuppis.arguments;
+
+/**
+ * Receives command line tokens one at a time.
+ * @param <E> exception thrown when a token is rejected
+ */
+/* package */ interface TokenConsumer<E extends Exception> {
+    /**
+     * Consumes the next token.
+     * @param token the next token
+     * @throws E if the token is rejected
+     */
+    public void accept(String token) throws E;
+}
@@ -0,0 +1,25 @@
+package com.zetapuppis.arguments;
+
+import java.nio.CharBuffer;
+
+/**
+ * Splits text into tokens, pushing every token to a {@link TokenConsumer}
+ * as soon as it's complete. Text can be fed in chunks of any size.
+ * @param <E> exception thrown by the consumer
+ */
+/* package */ interface Tokenizer<E extends Exception> {
+    /**
+     * Tokenizes the remaining characters of the given buffer.
+     * @param chars characters to tokenize
+     * @throws E if the consumer rejects a token
+     */
+    public void feed(CharBuffer chars) throws E;
+
+    /**
+     * Signals that there is no more text, pushing the last token if any.
+     * @return false if the text ended inside a token that can't be
+     *         completed, true otherwise
+     * @throws E if the consumer rejects the last token
+     */
+    public boolean finish() throws E;
+}
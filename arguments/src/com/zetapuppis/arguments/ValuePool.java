@@ -0,0 +1,108 @@
+package com.zetapuppis.arguments;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of argument values, so that equal values parsed from
+ * different command lines share the same {@link String} instance.
+ * <p>
+ * Meant for applications that keep many {@link ParsedArguments} around
+ * (see {@link ParserSchema.Builder#withValuePool(ValuePool)}): values such
+ * as <code>--queue default</code> are stored once rather than once per
+ * command line, and the original command line strings can be collected.
+ * <p>
+ * The pool is a fixed-size table indexed by the hash of the values, each
+ * entry holding the last value that hashed there: memory is bounded by the
+ * capacity, lookups don't lock and a value that collides with another one
+ * simply replaces it. Frequent values stay in the pool, while values seen
+ * only once get replaced without ever being evicted explicitly. A pool can
+ * be shared by any number of schemas and threads.
+ */
+public final class ValuePool {
+    // tables larger than this aren't worth the memory
+    private final static int MAX_CAPACITY = 1 << 24;
+
+    private final AtomicReferenceArray<String> mTable;
+    private final int mMask;
+    private final LongAdder mHits = new LongAdder();
+    private final LongAdder mMisses = new LongAdder();
+
+    /**
+     * Creates an empty pool.
+     * @param capacity maximum number of values kept, rounded up to a power
+     *                 of two and silently capped at 2<sup>24</sup>
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ValuePool(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("invalid capacity %d", capacity));
+        }
+        // capped first, rounding up larger capacities would overflow
+        final int capped = Math.min(MAX_CAPACITY, capacity);
+        mTable = new AtomicReferenceArray<String>(Math.max(1, Integer.highestOneBit(capped - 1) << 1));
+        mMask = mTable.length() - 1;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given value, or pools the
+     * given value if there is none.
+     * @param value an argument value
+     * @return a string equal to the given value
+     */
+    public String intern(final String value) {
+        final int hash = value.hashCode();
+        final int index = (hash ^ (hash >>> 16)) & mMask;
+
+        final String pooled = mTable.get(index);
+        if (pooled != null && pooled.equals(value)) {
+            mHits.increment();
+            return pooled;
+        }
+        mTable.lazySet(index, value);
+        mMisses.increment();
+        return value;
+    }
+
+    /**
+     * Returns the maximum number of values kept by this pool.
+     */
+    public int getCapacity() {
+        return mTable.length();
+    }
+
+    /**
+     * Returns the number of values found in the pool.
+     */
+    public long getHitCount() {
+        return mHits.sum();
+    }
+
+    /**
+     * Returns the number of values that weren't in the pool.
+     */
+    public long getMissCount() {
+        return mMisses.sum();
+    }
+
+    /**
+     * Returns the fraction of values found in the pool.
+     * @return a value between 0 and 1, or 0 if no value has been pooled
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Removes all the values and clears the statistics.
+     */
+    public void clear() {
+        for (int i = 0; i < mTable.length(); i++) {
+            mTable.set(i, null);
+        }
+        mHits.reset();
+        mMisses.reset();
+    }
+}
@@ -0,0 +1,34 @@
+package com.zetapuppis.arguments.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a field as a positional keyword.
+ * <p>
+ * Supported types are <code>String</code>, <code>int</code>,
+ * <code>char</code> and <code>File</code> (or their boxed counterparts).
+ * Annotated fields must not be static or final. The parser generated for
+ * the enclosing class writes them directly, so they must not be private
+ * either, while {@link com.zetapuppis.arguments.ArgumentBinder} can write
+ * private fields too.
+ *
+ * @see Switch
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Positional {
+    /**
+     * Position of the keyword, starting at 1.
+     */
+    int value();
+
+    /**
+     * Name of the keyword, defaults to the field's name.
+     */
+    String name() default "";
+}
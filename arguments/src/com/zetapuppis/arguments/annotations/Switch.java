@@ -0,0 +1,47 @@
+package com.zetapuppis.arguments.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a field as a switch-based argument (<code>--name</code>).
+ * <p>
+ * The kind of switch depends on the field's type: <code>boolean</code>
+ * fields are switches without a value, <code>List&lt;String&gt;</code>,
+ * <code>int[]</code> and <code>long[]</code> fields are repeatable
+ * switches, while <code>String</code>, <code>int</code>,
+ * <code>char</code> and <code>File</code> fields (or their boxed
+ * counterparts) take a single value. Fields of switches missing from the
+ * command line keep their initial value.
+ * <p>
+ * Annotated fields must not be static or final. The parser generated for
+ * the enclosing class writes them directly, so they must not be private
+ * either, while {@link com.zetapuppis.arguments.ArgumentBinder} can write
+ * private fields too.
+ *
+ * @see Positional
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Switch {
+    /**
+     * Name of the switch, defaults to the field's name with camel case
+     * words separated by dashes (<code>dryRun</code> becomes
+     * <code>--dry-run</code>).
+     */
+    String name() default "";
+
+    /**
+     * Short version of the switch, without its dash.
+     */
+    String shortName() default "";
+
+    /**
+     * Whether the switch is mandatory.
+     */
+    boolean required() default false;
+}
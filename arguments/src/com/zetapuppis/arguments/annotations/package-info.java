@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Annotations for declaring command line arguments as fields of a class.
+ *
+ * <p>The <code>arguments-processor</code> annotation processor generates,
+ * for every class with fields annotated with {@link
+ * com.zetapuppis.arguments.annotations.Switch} or {@link
+ * com.zetapuppis.arguments.annotations.Positional}, a parser class named
+ * after it (<code>OptionsParser</code> for <code>Options</code>) that
+ * fills the fields without using reflection:
+ * <pre>
+ *   class Options {
+ *       &#64;Positional(1) File input;
+ *       &#64;Switch(shortName = "v") boolean verbose;
+ *       &#64;Switch(required = true) int threads;
+ *   }
+ *
+ *   Options options = OptionsParser.parse(args);
+ * </pre>
+ *
+ * <p>Without the annotation processor, the same fields can be filled at
+ * runtime by {@link com.zetapuppis.arguments.ArgumentBinder}, which
+ * inspects each class only once.
+ */
+@ParametersAreNonnullByDefault
+package com.zetapuppis.arguments.annotations;
+
+import javax.annotation.ParametersAreNonnullByDefault;